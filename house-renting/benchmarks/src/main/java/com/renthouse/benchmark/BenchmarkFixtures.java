@@ -0,0 +1,127 @@
+package com.renthouse.benchmark;
+
+import com.renthouse.entity.*;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detached entity graphs shaped like the production data: an owner with a few renthouses,
+ * several floors each, most rooms rented, and a year of payments per rented room.
+ */
+public final class BenchmarkFixtures {
+
+    public static final String JWT_SECRET = "mySecretKey123456789012345678901234567890123456789012345";
+    public static final long JWT_EXPIRATION_MS = 86400000L;
+
+    private BenchmarkFixtures() {
+    }
+
+    public static List<Room> rooms(int renthouses, int floorsPerRenthouse, int roomsPerFloor) {
+        User owner = user(1L, "owner1", User.Role.OWNER);
+        LocalDateTime created = LocalDateTime.of(2024, 1, 15, 9, 30);
+        List<Room> rooms = new ArrayList<>();
+        long nextId = 1;
+        long tenantId = 100;
+        for (int r = 0; r < renthouses; r++) {
+            Renthouse renthouse = new Renthouse();
+            renthouse.setId((long) r + 1);
+            renthouse.setName("Sunrise Residence " + (r + 1));
+            renthouse.setAddress((12 + r) + " Norodom Blvd, Phnom Penh");
+            renthouse.setDescription("Quiet building close to the market");
+            renthouse.setBaseRent(new BigDecimal("150.00"));
+            renthouse.setWaterFee(new BigDecimal("5.00"));
+            renthouse.setElectricityFee(new BigDecimal("0.25"));
+            renthouse.setOwner(owner);
+            renthouse.setCreatedAt(created);
+            for (int f = 1; f <= floorsPerRenthouse; f++) {
+                Floor floor = new Floor();
+                floor.setId((long) r * floorsPerRenthouse + f);
+                floor.setFloorNumber(f);
+                floor.setRenthouse(renthouse);
+                floor.setCreatedAt(created);
+                for (int n = 1; n <= roomsPerFloor; n++) {
+                    Room room = new Room();
+                    room.setId(nextId++);
+                    room.setRoomNumber(String.valueOf(f * 100 + n));
+                    room.setDescription("Room with balcony and private bathroom");
+                    room.setMonthlyRent(new BigDecimal(120 + 5 * n).setScale(2));
+                    room.setDeposit(new BigDecimal(240 + 10 * n).setScale(2));
+                    room.setFloor(floor);
+                    room.setCreatedAt(created);
+                    room.setUpdatedAt(created.plusDays(n));
+                    // Roughly three in four rooms are rented
+                    if (n % 4 != 0) {
+                        room.setRenter(user(tenantId, "tenant" + tenantId, User.Role.USER));
+                        tenantId++;
+                        room.setStatus(Room.RoomStatus.OCCUPIED);
+                        room.setBookedAt(created.plusMonths(1));
+                    } else {
+                        room.setStatus(Room.RoomStatus.AVAILABLE);
+                    }
+                    floor.getRooms().add(room);
+                    rooms.add(room);
+                }
+                renthouse.getFloors().add(floor);
+            }
+        }
+        return rooms;
+    }
+
+    public static List<Payment> payments(List<Room> rooms, int months) {
+        List<Payment> payments = new ArrayList<>();
+        LocalDate firstMonth = LocalDate.of(2024, 1, 1);
+        long nextId = 1;
+        for (Room room : rooms) {
+            if (room.getRenter() == null) {
+                continue;
+            }
+            for (int m = 0; m < months; m++) {
+                Payment payment = new Payment();
+                payment.setId(nextId++);
+                payment.setType("MONTHLY");
+                payment.setPaymentMonth(firstMonth.plusMonths(m));
+                payment.setRoomFee(room.getMonthlyRent());
+                payment.setElectricityFee(new BigDecimal("0.25").multiply(new BigDecimal(80 + m * 7)));
+                payment.setWaterFee(new BigDecimal("5.00"));
+                // Most months have no extra charges, which leaves the field null as the API does
+                if (m % 3 == 0) {
+                    payment.setOtherCharges(new BigDecimal("2.50"));
+                    payment.setOtherChargesDescription("Trash collection");
+                }
+                payment.setQrCodeData("PAYMENT:" + room.getId() + ":" + payment.getPaymentMonth());
+                payment.setRoom(room);
+                payment.setUser(room.getRenter());
+                payments.add(payment);
+            }
+        }
+        return payments;
+    }
+
+    public static User user(Long id, String username, User.Role role) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("$2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2.uheWG/igi");
+        user.setFullName("Sok " + username);
+        user.setPhoneNumber("012345678");
+        user.setRole(role);
+        return user;
+    }
+
+    /** Sets an @Autowired or @Value field the way Spring would, for beans built without a context. */
+    public static void inject(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Failed to inject " + fieldName + ": " + e.getMessage(), e);
+        }
+    }
+}
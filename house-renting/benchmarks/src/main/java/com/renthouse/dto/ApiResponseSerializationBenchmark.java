@@ -0,0 +1,89 @@
+package com.renthouse.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.renthouse.benchmark.BenchmarkFixtures;
+import com.renthouse.entity.Room;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of ApiResponse&lt;List&lt;RoomDto&gt;&gt;, the payload of the room list
+ * endpoints. The mapper is configured the way Spring Boot configures the MVC one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiResponseSerializationBenchmark {
+
+    @Param({"20", "200"})
+    private int rooms;
+
+    private ApiResponse<List<RoomDto>> response;
+    private ObjectMapper objectMapper;
+    private ObjectWriter objectWriter;
+
+    @Setup
+    public void setUp() {
+        List<RoomDto> dtos = new ArrayList<>();
+        List<Room> fixture = BenchmarkFixtures.rooms(5, 5, 8);
+        for (Room room : fixture.subList(0, rooms)) {
+            dtos.add(toDto(room));
+        }
+        response = ApiResponse.success("Rooms retrieved successfully", dtos);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        objectWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructParametricType(ApiResponse.class,
+                        objectMapper.getTypeFactory().constructCollectionType(List.class, RoomDto.class)));
+    }
+
+    /** What MappingJackson2HttpMessageConverter does: resolve the type per call, then write. */
+    @Benchmark
+    public byte[] writeValueAsBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    /** Baseline with the writer resolved once up front. */
+    @Benchmark
+    public byte[] preparedWriter() throws IOException {
+        return objectWriter.writeValueAsBytes(response);
+    }
+
+    private static RoomDto toDto(Room room) {
+        RoomDto dto = new RoomDto();
+        dto.setId(room.getId());
+        dto.setRoomNumber(room.getRoomNumber());
+        dto.setDescription(room.getDescription());
+        dto.setMonthlyRent(room.getMonthlyRent());
+        dto.setDeposit(room.getDeposit());
+        dto.setStatus(room.getStatus());
+        dto.setBookedAt(room.getBookedAt());
+        dto.setCreatedAt(room.getCreatedAt());
+        dto.setUpdatedAt(room.getUpdatedAt());
+        dto.setFloorId(room.getFloor().getId());
+        dto.setFloorNumber(room.getFloor().getFloorNumber());
+        dto.setRenthouseId(room.getFloor().getRenthouse().getId());
+        dto.setRenthouseName(room.getFloor().getRenthouse().getName());
+        dto.setRenthouseAddress(room.getFloor().getRenthouse().getAddress());
+        if (room.getRenter() != null) {
+            dto.setRenterId(room.getRenter().getId());
+            dto.setRenterName(room.getRenter().getFullName());
+            dto.setRenterFullName(room.getRenter().getFullName());
+            dto.setRenterUsername(room.getRenter().getUsername());
+            dto.setRenterEmail(room.getRenter().getEmail());
+            dto.setRenterPhone(room.getRenter().getPhoneNumber());
+            dto.setMoveInDate(room.getBookedAt());
+        }
+        dto.setIsOccupied(room.getStatus() != Room.RoomStatus.AVAILABLE);
+        dto.setIsFavorite(room.getId() % 5 == 0);
+        return dto;
+    }
+}
@@ -0,0 +1,38 @@
+package com.renthouse.entity;
+
+import com.renthouse.benchmark.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BigDecimal arithmetic in Payment.calculateTotalAmount, which runs on every payment insert
+ * and update. The fixture mixes present and null other charges like real bills do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentTotalBenchmark {
+
+    private List<Payment> payments;
+
+    @Setup
+    public void setUp() {
+        // 72 rented rooms x 12 months
+        payments = BenchmarkFixtures.payments(BenchmarkFixtures.rooms(3, 4, 8), 12);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(864)
+    public void calculateTotalAmount(Blackhole blackhole) {
+        for (Payment payment : payments) {
+            payment.calculateTotalAmount();
+            blackhole.consume(payment.getTotalAmount());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.renthouse.load;
+
+import java.util.Arrays;
+
+/**
+ * Collects response times of one operation. Samples are kept raw (a long per request) so the
+ * percentiles are exact; a few minutes of load stays well within memory.
+ */
+class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int count;
+    private int errors;
+
+    synchronized void record(long nanos, boolean success) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    synchronized Snapshot snapshot() {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return new Snapshot(sorted, errors);
+    }
+
+    static class Snapshot {
+        private final long[] sorted;
+        private final int errors;
+
+        Snapshot(long[] sorted, int errors) {
+            this.sorted = sorted;
+            this.errors = errors;
+        }
+
+        int count() {
+            return sorted.length;
+        }
+
+        int errors() {
+            return errors;
+        }
+
+        double percentileMillis(double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+        }
+
+        double maxMillis() {
+            return sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000.0;
+        }
+
+        static Snapshot merge(Iterable<Snapshot> snapshots) {
+            int total = 0;
+            int errors = 0;
+            for (Snapshot snapshot : snapshots) {
+                total += snapshot.sorted.length;
+                errors += snapshot.errors;
+            }
+            long[] merged = new long[total];
+            int offset = 0;
+            for (Snapshot snapshot : snapshots) {
+                System.arraycopy(snapshot.sorted, 0, merged, offset, snapshot.sorted.length);
+                offset += snapshot.sorted.length;
+            }
+            Arrays.sort(merged);
+            return new Snapshot(merged, errors);
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.renthouse.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop load driver: a fixed number of virtual users each log in once and then issue
+ * requests back to back (plus optional think time), picking operations from a weighted mix of
+ * tenant browsing, tenant account pages, favorites, bookings and owner dashboard traffic.
+ * Prints throughput and latency percentiles per operation and can write them as JSON.
+ *
+ * Expects the accounts created by SyntheticDataGenerator (gen_tenantN / gen_ownerN, password
+ * "password"). Example:
+ *
+ *   java -cp benchmarks/target/benchmarks.jar com.renthouse.load.LoadDriver \
+ *       --url=http://localhost:8080 --users=100 --duration=120 --warmup=20 --out=load.json
+ */
+public class LoadDriver {
+
+    private static final String PASSWORD = "password";
+    private static final String[] SEARCH_NAMES = {"Sunrise", "Lotus", "Riverside", "Golden", "Palm", "Royal", "Sky"};
+    private static final String[] SEARCH_LOCATIONS = {"Daun Penh", "Chamkarmon", "Toul Kork", "Sen Sok", "Norodom"};
+
+    private final String baseUrl;
+    private final int users;
+    private final int durationSeconds;
+    private final int warmupSeconds;
+    private final long thinkMillis;
+    private final int tenantAccounts;
+    private final int ownerAccounts;
+    private final double ownerShare;
+    private final String out;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client;
+    private final Map<String, LatencyRecorder> recorders = new ConcurrentHashMap<>();
+    private final List<Long> renthouseIds = new CopyOnWriteArrayList<>();
+    private final List<Long> availableRoomIds = new CopyOnWriteArrayList<>();
+    private final List<String> failures = new CopyOnWriteArrayList<>();
+
+    private volatile boolean recording;
+    private volatile boolean running = true;
+
+    LoadDriver(Map<String, String> options) {
+        baseUrl = options.getOrDefault("url", "http://localhost:8080");
+        users = Integer.parseInt(options.getOrDefault("users", "50"));
+        durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        thinkMillis = Long.parseLong(options.getOrDefault("think-ms", "0"));
+        tenantAccounts = Integer.parseInt(options.getOrDefault("tenants", "2000"));
+        ownerAccounts = Integer.parseInt(options.getOrDefault("owners", "50"));
+        ownerShare = Double.parseDouble(options.getOrDefault("owner-share", "0.2"));
+        out = options.get("out");
+        client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Unexpected argument " + arg + ", use --name=value");
+                System.exit(2);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadDriver(options).run();
+    }
+
+    void run() throws Exception {
+        discover();
+        System.out.printf("Driving %s with %d users for %ds (+%ds warm-up), %d renthouses, %d available rooms%n",
+                baseUrl, users, durationSeconds, warmupSeconds, renthouseIds.size(), availableRoomIds.size());
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        int owners = (int) Math.round(users * ownerShare);
+        for (int i = 0; i < users; i++) {
+            boolean owner = i < owners;
+            int account = owner ? i % ownerAccounts : ThreadLocalRandom.current().nextInt(tenantAccounts);
+            executor.submit(() -> virtualUser(owner, account));
+        }
+
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        recorders.clear();
+        recording = true;
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(durationSeconds);
+        running = false;
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+        executor.awaitTermination(60, TimeUnit.SECONDS);
+
+        report(elapsedSeconds);
+    }
+
+    /** Finds renthouse and room ids to use in requests, as the tenant-facing search sees them. */
+    private void discover() throws Exception {
+        String token = login("gen_tenant0");
+        JsonNode renthouses = get(token, "/api/user/renthouses/search").path("data");
+        for (JsonNode renthouse : renthouses) {
+            renthouseIds.add(renthouse.path("id").asLong());
+            for (JsonNode floor : renthouse.path("floors")) {
+                for (JsonNode room : floor.path("rooms")) {
+                    if ("AVAILABLE".equals(room.path("status").asText())) {
+                        availableRoomIds.add(room.path("id").asLong());
+                    }
+                }
+            }
+        }
+        if (renthouseIds.isEmpty()) {
+            throw new IllegalStateException("No renthouses found, generate data with --datagen.enabled=true first");
+        }
+    }
+
+    private void virtualUser(boolean owner, int account) {
+        String token;
+        try {
+            token = login((owner ? "gen_owner" : "gen_tenant") + account);
+        } catch (Exception e) {
+            failures.add("login failed for account " + account + ": " + e.getMessage());
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running) {
+            try {
+                if (owner) {
+                    ownerStep(token, random);
+                } else {
+                    tenantStep(token, random);
+                }
+                if (thinkMillis > 0) {
+                    Thread.sleep(thinkMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (failures.size() < 20) {
+                    failures.add(e.toString());
+                }
+            }
+        }
+    }
+
+    private void tenantStep(String token, ThreadLocalRandom random) throws Exception {
+        int pick = random.nextInt(100);
+        if (pick < 18) {
+            call("featured", token, "GET", "/api/user/renthouses/featured");
+        } else if (pick < 28) {
+            String query = random.nextBoolean()
+                    ? "name=" + encode(SEARCH_NAMES[random.nextInt(SEARCH_NAMES.length)])
+                    : "location=" + encode(SEARCH_LOCATIONS[random.nextInt(SEARCH_LOCATIONS.length)]);
+            call("search", token, "GET", "/api/user/renthouses/search?" + query);
+        } else if (pick < 38) {
+            double latitude = 11.55 + (random.nextDouble() - 0.5) * 0.1;
+            double longitude = 104.92 + (random.nextDouble() - 0.5) * 0.1;
+            call("nearby", token, "GET", "/api/user/renthouses/nearby?latitude=" + latitude
+                    + "&longitude=" + longitude + "&radiusKm=3");
+        } else if (pick < 52) {
+            call("renthouse details", token, "GET", "/api/user/renthouses/" + randomRenthouse(random));
+        } else if (pick < 60) {
+            call("available rooms", token, "GET", "/api/user/renthouses/" + randomRenthouse(random) + "/rooms/available");
+        } else if (pick < 64) {
+            call("favorite check", token, "GET", "/api/user/renthouses/" + randomRenthouse(random) + "/favorites/check");
+        } else if (pick < 70) {
+            call("favorites", token, "GET", "/api/user/favorites");
+        } else if (pick < 76) {
+            call("payments", token, "GET", "/api/user/payments");
+        } else if (pick < 80) {
+            call("pending payments", token, "GET", "/api/user/payments/pending");
+        } else if (pick < 85) {
+            call("current booking", token, "GET", "/api/user/booking/current");
+        } else if (pick < 88) {
+            call("all bookings", token, "GET", "/api/user/bookings/all");
+        } else if (pick < 98) {
+            Long roomId = randomAvailableRoom(random);
+            if (roomId != null) {
+                call("add favorite", token, "POST", "/api/user/favorites/" + roomId);
+                call("remove favorite", token, "DELETE", "/api/user/favorites/" + roomId);
+            }
+        } else {
+            Long roomId = randomAvailableRoom(random);
+            if (roomId != null && availableRoomIds.remove(roomId)) {
+                call("book room", token, "POST", "/api/user/rooms/" + roomId + "/book");
+            }
+        }
+    }
+
+    private void ownerStep(String token, ThreadLocalRandom random) throws Exception {
+        int pick = random.nextInt(100);
+        if (pick < 25) {
+            call("owner analytics", token, "GET", "/api/owner/analytics");
+        } else if (pick < 40) {
+            call("owner renthouses", token, "GET", "/api/owner/renthouses");
+        } else if (pick < 55) {
+            call("owner rooms", token, "GET", "/api/owner/rooms");
+        } else if (pick < 70) {
+            call("owner payments", token, "GET", "/api/owner/payments");
+        } else if (pick < 82) {
+            call("owner tenants", token, "GET", "/api/owner/tenants");
+        } else if (pick < 92) {
+            call("owner yearly income", token, "GET", "/api/owner/income/yearly?year=" + LocalDate.now().getYear());
+        } else {
+            call("owner active rooms", token, "GET", "/api/owner/stats/active-rooms");
+        }
+    }
+
+    private void call(String operation, String token, String method, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        long elapsed = System.nanoTime() - start;
+        if (recording) {
+            boolean success = response.statusCode() / 100 == 2;
+            recorders.computeIfAbsent(operation, name -> new LatencyRecorder()).record(elapsed, success);
+        }
+    }
+
+    private String login(String username) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("username", username, "password", PASSWORD));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        JsonNode json = objectMapper.readTree(response.body());
+        if (response.statusCode() != 200 || !json.path("success").asBoolean()) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + " " + json.path("message").asText());
+        }
+        return json.path("data").path("token").asText();
+    }
+
+    private JsonNode get(String token, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofMinutes(5))
+                .build();
+        return objectMapper.readTree(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+    }
+
+    private Long randomRenthouse(ThreadLocalRandom random) {
+        return renthouseIds.get(random.nextInt(renthouseIds.size()));
+    }
+
+    private Long randomAvailableRoom(ThreadLocalRandom random) {
+        int size = availableRoomIds.size();
+        if (size == 0) {
+            return null;
+        }
+        try {
+            return availableRoomIds.get(random.nextInt(size));
+        } catch (IndexOutOfBoundsException e) {
+            // Shrunk by a concurrent booking
+            return null;
+        }
+    }
+
+    private void report(double elapsedSeconds) throws Exception {
+        Map<String, LatencyRecorder.Snapshot> snapshots = new TreeMap<>();
+        recorders.forEach((operation, recorder) -> snapshots.put(operation, recorder.snapshot()));
+        LatencyRecorder.Snapshot total = LatencyRecorder.Snapshot.merge(snapshots.values());
+
+        System.out.printf("%n%-22s %8s %7s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        snapshots.forEach((operation, snapshot) -> printRow(operation, snapshot, elapsedSeconds));
+        printRow("TOTAL", total, elapsedSeconds);
+        if (!failures.isEmpty()) {
+            System.out.println("\nClient-side failures (first " + failures.size() + "):");
+            failures.forEach(failure -> System.out.println("  " + failure));
+        }
+
+        if (out != null) {
+            ObjectNode json = objectMapper.createObjectNode();
+            json.put("url", baseUrl);
+            json.put("users", users);
+            json.put("durationSeconds", elapsedSeconds);
+            json.set("total", toJson("TOTAL", total, elapsedSeconds));
+            ArrayNode operations = json.putArray("operations");
+            snapshots.forEach((operation, snapshot) -> operations.add(toJson(operation, snapshot, elapsedSeconds)));
+            objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(out), json);
+            System.out.println("\nReport written to " + out);
+        }
+    }
+
+    private void printRow(String operation, LatencyRecorder.Snapshot snapshot, double elapsedSeconds) {
+        System.out.printf("%-22s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n", operation, snapshot.count(),
+                snapshot.errors(), snapshot.count() / elapsedSeconds, snapshot.percentileMillis(50),
+                snapshot.percentileMillis(90), snapshot.percentileMillis(99), snapshot.maxMillis());
+    }
+
+    private ObjectNode toJson(String operation, LatencyRecorder.Snapshot snapshot, double elapsedSeconds) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("operation", operation);
+        node.put("requests", snapshot.count());
+        node.put("errors", snapshot.errors());
+        node.put("throughput", snapshot.count() / elapsedSeconds);
+        node.put("p50", snapshot.percentileMillis(50));
+        node.put("p90", snapshot.percentileMillis(90));
+        node.put("p99", snapshot.percentileMillis(99));
+        node.put("max", snapshot.maxMillis());
+        return node;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
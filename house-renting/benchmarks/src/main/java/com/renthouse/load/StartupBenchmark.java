@@ -0,0 +1,145 @@
+package com.renthouse.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures time-to-first-request: starts the application with each configured command, polls a
+ * URL until it answers 2xx, and stops the process. Repeats every mode a few times and reports the
+ * median, min and max, next to the "Started ... in N seconds" time Spring Boot logs itself.
+ *
+ *   java -cp benchmarks/target/benchmarks.jar com.renthouse.load.StartupBenchmark --dir=target/fast-startup \
+ *       "--mode.jar=java @classpath.args com.renthouse.RenthouseApplication" \
+ *       "--mode.aot-cds=java -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true ..."
+ */
+public class StartupBenchmark {
+
+    private static final Pattern STARTED = Pattern.compile("Started \\w+ in ([0-9.]+) seconds");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        Map<String, String> modes = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Unexpected argument " + arg + ", use --name=value");
+                System.exit(2);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (name.startsWith("mode.")) {
+                modes.put(name.substring("mode.".length()), value);
+            } else {
+                options.put(name, value);
+            }
+        }
+        if (modes.isEmpty()) {
+            System.err.println("At least one --mode.<name>=<command> is required");
+            System.exit(2);
+        }
+
+        String url = options.getOrDefault("url", "http://localhost:8080/actuator/health");
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        int timeoutSeconds = Integer.parseInt(options.getOrDefault("timeout", "120"));
+        File dir = new File(options.getOrDefault("dir", "."));
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ObjectNode report = objectMapper.createObjectNode();
+        report.put("url", url);
+        ArrayNode results = report.putArray("modes");
+
+        System.out.printf("%-16s %6s %14s %12s %12s %16s%n",
+                "mode", "runs", "median ms", "min ms", "max ms", "boot-logged ms");
+        for (Map.Entry<String, String> mode : modes.entrySet()) {
+            List<Long> firstRequest = new ArrayList<>();
+            List<Long> logged = new ArrayList<>();
+            for (int run = 0; run < runs; run++) {
+                long[] result = measure(mode.getValue(), dir, url, client, timeoutSeconds);
+                firstRequest.add(result[0]);
+                if (result[1] >= 0) {
+                    logged.add(result[1]);
+                }
+            }
+            Collections.sort(firstRequest);
+            Collections.sort(logged);
+            long median = firstRequest.get(firstRequest.size() / 2);
+            long loggedMedian = logged.isEmpty() ? -1 : logged.get(logged.size() / 2);
+            System.out.printf("%-16s %6d %14d %12d %12d %16d%n", mode.getKey(), runs, median,
+                    firstRequest.get(0), firstRequest.get(firstRequest.size() - 1), loggedMedian);
+
+            ObjectNode node = results.addObject();
+            node.put("mode", mode.getKey());
+            node.put("command", mode.getValue());
+            node.put("medianMs", median);
+            node.put("minMs", firstRequest.get(0));
+            node.put("maxMs", firstRequest.get(firstRequest.size() - 1));
+            node.put("bootLoggedMedianMs", loggedMedian);
+            ArrayNode samples = node.putArray("samplesMs");
+            firstRequest.forEach(samples::add);
+        }
+
+        if (options.containsKey("out")) {
+            objectMapper.writeValue(new File(options.get("out")), report);
+            System.out.println("\nReport written to " + options.get("out"));
+        }
+    }
+
+    /** Returns {time to first 2xx response, time logged by Spring Boot or -1}, both in ms. */
+    private static long[] measure(String command, File dir, String url, HttpClient client, int timeoutSeconds)
+            throws Exception {
+        File log = File.createTempFile("startup-", ".log");
+        log.deleteOnExit();
+        ProcessBuilder builder = new ProcessBuilder(command.trim().split("\\s+"))
+                .directory(dir)
+                .redirectErrorStream(true)
+                .redirectOutput(log);
+        HttpRequest probe = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(2)).build();
+
+        long start = System.nanoTime();
+        Process process = builder.start();
+        try {
+            long deadline = start + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Process exited with " + process.exitValue() + ", see " + log);
+                }
+                try {
+                    HttpResponse<Void> response = client.send(probe, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() / 100 == 2) {
+                        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                        return new long[]{elapsedMs, bootLoggedMillis(log)};
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("No 2xx from " + url + " within " + timeoutSeconds + "s, see " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static long bootLoggedMillis(File log) throws IOException {
+        Matcher matcher = STARTED.matcher(Files.readString(log.toPath()));
+        return matcher.find() ? Math.round(Double.parseDouble(matcher.group(1)) * 1000) : -1;
+    }
+}
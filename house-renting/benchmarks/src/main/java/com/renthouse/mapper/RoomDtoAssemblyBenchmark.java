@@ -0,0 +1,70 @@
+package com.renthouse.mapper;
+
+import com.renthouse.benchmark.BenchmarkFixtures;
+import com.renthouse.entity.Renthouse;
+import com.renthouse.entity.Room;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Cost of turning a page of rooms into RoomDto with each DtoMapper room profile, and of mapping the
+ * renthouse trees those rooms belong to. The tenant profiles get every fifth room as a favorite.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomDtoAssemblyBenchmark {
+
+    private List<Room> rooms;
+    private List<Renthouse> renthouses;
+    private Set<Long> favoriteRoomIds;
+    private DtoMapper dtoMapper;
+
+    @Setup
+    public void setUp() {
+        // 3 renthouses x 4 floors x 8 rooms, about the size of an owner's room list
+        rooms = BenchmarkFixtures.rooms(3, 4, 8);
+        renthouses = rooms.stream().map(room -> room.getFloor().getRenthouse()).distinct().collect(Collectors.toList());
+        dtoMapper = new DtoMapperImpl();
+        favoriteRoomIds = rooms.stream().map(Room::getId).filter(id -> id % 5 == 0).collect(Collectors.toSet());
+    }
+
+    @Benchmark
+    public void ownerRoomDto(Blackhole blackhole) {
+        for (Room room : rooms) {
+            blackhole.consume(dtoMapper.toOwnerRoomDto(room));
+        }
+    }
+
+    @Benchmark
+    public void roomDetailsDto(Blackhole blackhole) {
+        for (Room room : rooms) {
+            blackhole.consume(dtoMapper.toRoomDetailsDto(room));
+        }
+    }
+
+    @Benchmark
+    public void tenantRoomDto(Blackhole blackhole) {
+        for (Room room : rooms) {
+            blackhole.consume(dtoMapper.toTenantRoomDto(room, favoriteRoomIds));
+        }
+    }
+
+    @Benchmark
+    public Object ownerRenthouseTree() {
+        return dtoMapper.toOwnerRenthouseDtos(renthouses);
+    }
+
+    @Benchmark
+    public Object tenantRenthouseTree() {
+        return dtoMapper.toTenantRenthouseDtos(renthouses, favoriteRoomIds);
+    }
+}
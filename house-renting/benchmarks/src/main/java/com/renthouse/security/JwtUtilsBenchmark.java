@@ -0,0 +1,60 @@
+package com.renthouse.security;
+
+import com.renthouse.benchmark.BenchmarkFixtures;
+import com.renthouse.entity.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT work done per request: JwtAuthenticationFilter extracts the username and validates the
+ * token on every authenticated call, and login issues a new one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilsBenchmark {
+
+    private JwtUtils jwtUtils;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        BenchmarkFixtures.inject(jwtUtils, "jwtSecret", BenchmarkFixtures.JWT_SECRET);
+        BenchmarkFixtures.inject(jwtUtils, "jwtExpirationMs", BenchmarkFixtures.JWT_EXPIRATION_MS);
+        user = BenchmarkFixtures.user(100L, "tenant100", User.Role.USER);
+        token = jwtUtils.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtils.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtils.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtils.validateToken(token);
+    }
+
+    @Benchmark
+    public Boolean validateTokenForUser() {
+        return jwtUtils.validateToken(token, user);
+    }
+
+    /** What JwtAuthenticationFilter does for one request. */
+    @Benchmark
+    public Boolean authenticateRequest() {
+        String username = jwtUtils.extractUsername(token);
+        return username != null && jwtUtils.validateToken(token, user);
+    }
+}
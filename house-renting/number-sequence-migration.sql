@@ -0,0 +1,24 @@
+-- Migration script for counter-based floor/room number allocation
+-- Run this script on your PostgreSQL database before deploying (ddl-auto=update adds the columns,
+-- but cannot create the unique constraints while duplicate numbers exist)
+
+-- Counter columns; NULL means "seed from existing rows on first allocation"
+ALTER TABLE renthouses ADD COLUMN IF NOT EXISTS floor_sequence INTEGER;
+ALTER TABLE floors ADD COLUMN IF NOT EXISTS room_sequence INTEGER;
+
+-- Backfill the counters so the first allocation does not need to scan
+UPDATE renthouses r SET floor_sequence = COALESCE(
+    (SELECT MAX(f.floor_number) FROM floors f WHERE f.renthouse_id = r.id), 0)
+WHERE floor_sequence IS NULL;
+
+UPDATE floors f SET room_sequence = COALESCE(
+    (SELECT MAX(CAST(r.room_number AS INTEGER)) FROM rooms r
+     WHERE r.floor_id = f.id AND r.room_number ~ '^[0-9]{1,9}$'), 0)
+WHERE room_sequence IS NULL;
+
+-- List duplicates that must be renumbered by hand before the constraints can be added
+SELECT renthouse_id, floor_number, COUNT(*) FROM floors GROUP BY renthouse_id, floor_number HAVING COUNT(*) > 1;
+SELECT floor_id, room_number, COUNT(*) FROM rooms GROUP BY floor_id, room_number HAVING COUNT(*) > 1;
+
+ALTER TABLE floors ADD CONSTRAINT uk_floors_renthouse_floor_number UNIQUE (renthouse_id, floor_number);
+ALTER TABLE rooms ADD CONSTRAINT uk_rooms_floor_room_number UNIQUE (floor_id, room_number);
@@ -0,0 +1,30 @@
+#!/bin/bash
+# Lays out a -Pfast-startup build for AppCDS, which can only archive classes loaded from plain
+# jars on the class path (not from inside the executable Spring Boot jar):
+#   <out>/app.jar         the application classes, including the AOT-generated ones
+#   <out>/lib/*.jar       the dependencies, taken from the executable jar
+#   <out>/classpath.args  "-cp ..." in Spring Boot's class path order, for java @classpath.args
+# Usage: ./prepare-fast-startup.sh [out-dir]   (default target/fast-startup, needs a JDK for jar)
+
+set -e
+cd "$(dirname "$0")"
+
+OUT="${1:-target/fast-startup}"
+VERSION=0.0.1-SNAPSHOT
+
+rm -rf "$OUT"
+mkdir -p "$OUT/lib"
+cp "target/renthouse-backend-$VERSION.jar" "$OUT/app.jar"
+
+EXTRACT="$(mktemp -d)"
+(cd "$EXTRACT" && jar xf "$OLDPWD/target/renthouse-backend-$VERSION-exec.jar" BOOT-INF/lib BOOT-INF/classpath.idx)
+mv "$EXTRACT"/BOOT-INF/lib/*.jar "$OUT/lib/"
+
+CLASSPATH="app.jar"
+for entry in $(sed -n 's|^- "BOOT-INF/\(lib/.*\.jar\)"$|\1|p' "$EXTRACT/BOOT-INF/classpath.idx"); do
+    CLASSPATH="$CLASSPATH:$entry"
+done
+echo "-cp $CLASSPATH" > "$OUT/classpath.args"
+rm -rf "$EXTRACT"
+
+echo "Fast-startup layout written to $OUT"
@@ -0,0 +1,15 @@
+#!/bin/bash
+# Builds the backend and the JMH benchmarks, then runs them.
+# Results are written as JSON to benchmarks/results/<commit>.json so runs can be diffed.
+# Extra arguments go to JMH, e.g. ./run-benchmarks.sh JwtUtilsBenchmark -f 2
+
+set -e
+cd "$(dirname "$0")"
+
+./mvnw -q -B install -DskipTests
+./mvnw -q -B -f benchmarks/pom.xml package
+
+mkdir -p benchmarks/results
+RESULT="benchmarks/results/$(git rev-parse --short HEAD 2>/dev/null || echo local).json"
+java -jar benchmarks/target/benchmarks.jar -rf json -rff "$RESULT" "$@"
+echo "Results written to $RESULT"
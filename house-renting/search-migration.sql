@@ -0,0 +1,20 @@
+-- Migration script for renthouse search (full-text column and indexes)
+-- Run this script on your PostgreSQL database before deploying, after the application has created the
+-- renthouses table (ddl-auto=update). It is safe to re-run. The user needs to be allowed to create pg_trgm.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Weights let one query target a field: A = name, B = address, C = description.
+-- 'simple' lowercases without stemming, which suits place names and mixed-language listings.
+ALTER TABLE renthouses ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(address, '')), 'B') ||
+        setweight(to_tsvector('simple', coalesce(description, '')), 'C')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_renthouses_search_vector ON renthouses USING gin (search_vector);
+
+-- Typo-tolerant fallback (word_similarity / <%) on the fields users type into the search box
+CREATE INDEX IF NOT EXISTS idx_renthouses_name_trgm ON renthouses USING gin (name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_renthouses_address_trgm ON renthouses USING gin (address gin_trgm_ops);
@@ -0,0 +1,124 @@
+package com.renthouse.config;
+
+import com.renthouse.monitoring.QueryBudgetGuard;
+import com.renthouse.monitoring.RequestSqlStats;
+import io.micrometer.core.instrument.Metrics;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Wraps the DataSource in a datasource-proxy so every executed statement is counted and timed,
+ * both globally (db.statements) and for the current request (RequestSqlStats), and the time the
+ * request holds a connection is tracked alongside. When query-budget.mode is set each statement is
+ * also checked by QueryBudgetGuard before it executes. Tasks a request submits to applicationTaskExecutor
+ * count towards that request.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public static BeanPostProcessor sqlMetricsDataSourcePostProcessor(ObjectProvider<QueryBudgetGuard> queryBudgetGuard) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new SqlMetricsListener(queryBudgetGuard))
+                            .methodListener(new ConnectionHoldListener())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Picked up by Spring Boot for applicationTaskExecutor
+    @Bean
+    public TaskDecorator requestSqlStatsTaskDecorator() {
+        return RequestSqlStats::propagate;
+    }
+
+    static class ConnectionHoldListener implements MethodExecutionListener {
+
+        @Override
+        public void beforeMethod(MethodExecutionContext executionContext) {
+        }
+
+        @Override
+        public void afterMethod(MethodExecutionContext executionContext) {
+            String method = executionContext.getMethod().getName();
+            if (executionContext.getTarget() instanceof DataSource && method.equals("getConnection")
+                    && executionContext.getThrown() == null) {
+                RequestSqlStats.connectionAcquired();
+            } else if (executionContext.getTarget() instanceof Connection && method.equals("close")) {
+                RequestSqlStats.connectionReleased();
+            }
+        }
+    }
+
+    static class SqlMetricsListener implements QueryExecutionListener {
+
+        private final ObjectProvider<QueryBudgetGuard> queryBudgetGuardProvider;
+        private volatile QueryBudgetGuard queryBudgetGuard;
+        private volatile boolean guardResolved;
+
+        SqlMetricsListener(ObjectProvider<QueryBudgetGuard> queryBudgetGuardProvider) {
+            this.queryBudgetGuardProvider = queryBudgetGuardProvider;
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            QueryBudgetGuard guard = resolveGuard();
+            if (guard != null) {
+                for (QueryInfo queryInfo : queryInfoList) {
+                    guard.beforeStatement(queryInfo.getQuery());
+                }
+            }
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            int statements = Math.max(1, execInfo.isBatch() ? execInfo.getBatchSize() : queryInfoList.size());
+            RequestSqlStats.record(statements, execInfo.getElapsedTime());
+            String type = queryInfoList.isEmpty() ? "other" : statementType(queryInfoList.get(0).getQuery());
+            Metrics.counter("db.statements", "type", type, "success", String.valueOf(execInfo.isSuccess()))
+                    .increment(statements);
+        }
+
+        // Resolved lazily: the DataSource is wrapped long before ordinary beans exist
+        private QueryBudgetGuard resolveGuard() {
+            if (!guardResolved) {
+                queryBudgetGuard = queryBudgetGuardProvider.getIfAvailable();
+                guardResolved = true;
+            }
+            return queryBudgetGuard;
+        }
+
+        private String statementType(String sql) {
+            String trimmed = sql.stripLeading();
+            int end = trimmed.indexOf(' ');
+            String keyword = (end > 0 ? trimmed.substring(0, end) : trimmed).toLowerCase(Locale.ROOT);
+            return switch (keyword) {
+                case "select", "insert", "update", "delete", "with" -> keyword;
+                default -> "other";
+            };
+        }
+    }
+}
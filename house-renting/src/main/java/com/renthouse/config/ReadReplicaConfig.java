@@ -0,0 +1,149 @@
+package com.renthouse.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Primary/replica setup, enabled with datasource.replica.enabled=true. Both pools are built here and
+ * only the routing DataSource is exposed as a bean, so the SQL metrics proxy wraps it once instead of
+ * once per pool. The connection limiter is the exception: each pool gets its own, sized to that pool,
+ * so reads can use the whole replica pool while writes use the whole primary pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(Environment environment, MeterRegistry meterRegistry,
+                                               @Value("${datasource.replica.max-lag-ms:2000}") long maxLagMs) {
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(environment.getRequiredProperty("datasource.replica.url"))
+                .username(environment.getProperty("datasource.replica.username"))
+                .password(environment.getProperty("datasource.replica.password"))
+                .build();
+        Binder.get(environment).bind("datasource.replica.hikari", Bindable.ofInstance(replica));
+        replica.setPoolName("replica");
+        replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, maxLagMs);
+        monitor.check();
+        meterRegistry.gauge("db.replica.lag", monitor, ReplicaLagMonitor::getLagMs);
+        return monitor;
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${datasource.replica.read-your-writes-ms:5000}") long windowMs) {
+        return new ReadYourWritesTracker(windowMs);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+                                 MeterRegistry meterRegistry, ReplicaLagMonitor replicaLagMonitor,
+                                 ReadYourWritesTracker readYourWritesTracker) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+        DataSource replica = replicaLagMonitor.getReplica();
+        DataSource limitedPrimary = limited(primary, "datasource.concurrency-limit.permits", environment);
+        DataSource limitedReplica = limited(replica, "datasource.replica.concurrency-limit.permits", environment);
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(replicaLagMonitor, readYourWritesTracker);
+        routing.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.PRIMARY, limitedPrimary,
+                ReplicaRoutingDataSource.REPLICA, limitedReplica));
+        routing.setDefaultTargetDataSource(limitedPrimary);
+        routing.afterPropertiesSet();
+        return new RoutingDataSourceProxy(routing, primary, replica);
+    }
+
+    // Same settings as VirtualThreadConfig's limiter, with the permits defaulting to this pool's size
+    private static DataSource limited(DataSource pool, String permitsProperty, Environment environment) {
+        if (!environment.getProperty("datasource.concurrency-limit.enabled", Boolean.class, false)) {
+            return pool;
+        }
+        int poolSize = pool instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+        int permits = environment.getProperty(permitsProperty, Integer.class, poolSize);
+        long acquireTimeoutMs = environment.getProperty("datasource.concurrency-limit.acquire-timeout-ms", Long.class, 5000L);
+        return new ConnectionLimitingDataSource(pool, permits, acquireTimeoutMs);
+    }
+
+    /**
+     * Spring's default for JPA holds a connection for the whole EntityManager, which under
+     * open-in-view means the whole request. A request that reads and then writes would then write
+     * through the replica connection, so release connections at the end of each transaction.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionsAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    public ReplicaLagCheck replicaLagCheck(ReplicaLagMonitor replicaLagMonitor,
+                                           ReadYourWritesTracker readYourWritesTracker) {
+        return new ReplicaLagCheck(replicaLagMonitor, readYourWritesTracker);
+    }
+
+    // The pools are not beans, so closing them is left to whoever closes the exposed DataSource.
+    // VirtualThreadConfig does not put a limiter in front of it; the pools behind it have their own.
+    static class RoutingDataSourceProxy extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+        private final HikariDataSource primary;
+        private final DataSource replica;
+
+        RoutingDataSourceProxy(ReplicaRoutingDataSource routing, HikariDataSource primary, DataSource replica) {
+            super(routing);
+            this.primary = primary;
+            this.replica = replica;
+        }
+
+        @Override
+        public void close() throws Exception {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+            primary.close();
+        }
+    }
+
+    static class ReplicaLagCheck {
+
+        private final ReplicaLagMonitor replicaLagMonitor;
+        private final ReadYourWritesTracker readYourWritesTracker;
+
+        ReplicaLagCheck(ReplicaLagMonitor replicaLagMonitor, ReadYourWritesTracker readYourWritesTracker) {
+            this.replicaLagMonitor = replicaLagMonitor;
+            this.readYourWritesTracker = readYourWritesTracker;
+        }
+
+        @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval-ms:1000}")
+        public void check() {
+            replicaLagMonitor.check();
+            readYourWritesTracker.evictExpired();
+        }
+    }
+}
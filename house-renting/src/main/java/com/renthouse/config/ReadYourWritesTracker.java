@@ -0,0 +1,40 @@
+package com.renthouse.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which users committed a write recently, so their reads stay on the primary until the
+ * replica has had time to catch up with their own changes.
+ */
+public class ReadYourWritesTracker {
+
+    private final long windowMs;
+    private final Map<String, Long> lastWriteAt = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    public void recordWrite(String username) {
+        lastWriteAt.put(username, System.currentTimeMillis());
+    }
+
+    public boolean isSticky(String username) {
+        Long writtenAt = lastWriteAt.get(username);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - writtenAt < windowMs) {
+            return true;
+        }
+        lastWriteAt.remove(username, writtenAt);
+        return false;
+    }
+
+    /** Drops expired entries of users who never read again. */
+    public void evictExpired() {
+        long cutoff = System.currentTimeMillis() - windowMs;
+        lastWriteAt.values().removeIf(writtenAt -> writtenAt < cutoff);
+    }
+}
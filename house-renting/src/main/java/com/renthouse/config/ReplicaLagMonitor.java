@@ -0,0 +1,69 @@
+package com.renthouse.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Polls the replica for its replay lag. The replica is used for reads only while it answers and
+ * lags less than max-lag-ms; otherwise read-only work falls back to the primary.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    // Zero when fully replayed (or not a standby at all), so an idle primary does not look like lag
+    private static final String LAG_QUERY =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() " +
+            "THEN 0 ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    private final DataSource replica;
+    private final long maxLagMs;
+
+    private volatile long lagMs = -1;
+    private volatile boolean usable;
+
+    public ReplicaLagMonitor(DataSource replica, long maxLagMs) {
+        this.replica = replica;
+        this.maxLagMs = maxLagMs;
+    }
+
+    public void check() {
+        boolean wasUsable = usable;
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+            resultSet.next();
+            lagMs = (long) resultSet.getDouble(1);
+            usable = lagMs <= maxLagMs;
+            if (!usable && wasUsable) {
+                logger.warn("Replica lag {}ms exceeds {}ms, routing reads to the primary", lagMs, maxLagMs);
+            }
+        } catch (Exception e) {
+            lagMs = -1;
+            usable = false;
+            if (wasUsable) {
+                logger.warn("Replica unreachable, routing reads to the primary: {}", e.getMessage());
+            }
+        }
+        if (usable && !wasUsable) {
+            logger.info("Replica available (lag {}ms), routing read-only transactions to it", lagMs);
+        }
+    }
+
+    public DataSource getReplica() {
+        return replica;
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    public long getLagMs() {
+        return lagMs;
+    }
+}
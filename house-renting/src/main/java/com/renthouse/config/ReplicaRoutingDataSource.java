@@ -0,0 +1,73 @@
+package com.renthouse.config;
+
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections for @Transactional(readOnly = true) work to the replica and everything else to
+ * the primary. Reads still go to the primary while the replica is lagging or down, and for a short
+ * while after the current user committed a write of their own.
+ *
+ * The routing decision needs the transaction's read-only flag, which Spring sets after the
+ * connection is requested, so this must sit behind a LazyConnectionDataSourceProxy.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public ReplicaRoutingDataSource(ReplicaLagMonitor lagMonitor, ReadYourWritesTracker readYourWritesTracker) {
+        this.lagMonitor = lagMonitor;
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String target = route();
+        Metrics.counter("db.routing", "target", target).increment();
+        return target;
+    }
+
+    private String route() {
+        String username = currentUsername();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            trackWrite(username);
+            return PRIMARY;
+        }
+        if (!lagMonitor.isUsable()) {
+            return PRIMARY;
+        }
+        if (username != null && readYourWritesTracker.isSticky(username)) {
+            return PRIMARY;
+        }
+        return REPLICA;
+    }
+
+    private void trackWrite(String username) {
+        if (username != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    readYourWritesTracker.recordWrite(username);
+                }
+            });
+        }
+    }
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
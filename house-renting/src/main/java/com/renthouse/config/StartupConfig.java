@@ -0,0 +1,48 @@
+package com.renthouse.config;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Beans declared in the packages listed in startup.lazy-packages (springdoc under the fast-startup
+ * profile) are created on first use instead of during context refresh. Request mappings are still
+ * registered at startup since handler detection only needs the bean type.
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    public static BeanFactoryPostProcessor lazyPackagesPostProcessor(Environment environment) {
+        String[] packages = environment.getProperty("startup.lazy-packages", String[].class, new String[0]);
+        return beanFactory -> {
+            if (packages.length == 0) {
+                return;
+            }
+            for (String beanName : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+                String className = declaringClassName(definition);
+                if (className == null || definition.isLazyInit()) {
+                    continue;
+                }
+                for (String lazyPackage : packages) {
+                    if (className.startsWith(lazyPackage.trim() + ".")) {
+                        definition.setLazyInit(true);
+                        break;
+                    }
+                }
+            }
+        };
+    }
+
+    private static String declaringClassName(BeanDefinition definition) {
+        // @Bean methods have no bean class name; use the configuration class that declares them
+        if (definition instanceof AnnotatedBeanDefinition annotated && annotated.getFactoryMethodMetadata() != null) {
+            return annotated.getFactoryMethodMetadata().getDeclaringClassName();
+        }
+        return definition.getBeanClassName();
+    }
+}
@@ -0,0 +1,39 @@
+package com.renthouse.config;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Request handling, @Async and @Scheduled run on virtual threads when spring.threads.virtual.enabled
+ * is set (Spring Boot wires Tomcat and the task executors). Since thousands of virtual threads can now
+ * reach JPA at once, the DataSource is fronted by a semaphore sized to the pool. With the read replica
+ * on, ReadReplicaConfig puts one in front of each pool instead.
+ */
+@Configuration
+public class VirtualThreadConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "datasource.concurrency-limit.enabled", havingValue = "true")
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionLimitingDataSource)
+                        && !(bean instanceof ReadReplicaConfig.RoutingDataSourceProxy)) {
+                    int permits = environment.getProperty("datasource.concurrency-limit.permits", Integer.class,
+                            environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+                    long acquireTimeoutMs = environment.getProperty(
+                            "datasource.concurrency-limit.acquire-timeout-ms", Long.class, 5000L);
+                    return new ConnectionLimitingDataSource(dataSource, permits, acquireTimeoutMs);
+                }
+                return bean;
+            }
+        };
+    }
+}
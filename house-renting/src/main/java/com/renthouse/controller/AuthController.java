@@ -2,13 +2,17 @@ package com.renthouse.controller;
 
 import com.renthouse.dto.ApiResponse;
 import com.renthouse.dto.AuthResponse;
+import com.renthouse.dto.AvailabilityResponse;
 import com.renthouse.dto.LoginRequest;
 import com.renthouse.dto.RegisterRequest;
+import com.renthouse.exception.PasswordHashingBusyException;
 import com.renthouse.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -27,6 +31,8 @@ public class AuthController {
         try {
             AuthResponse authResponse = authService.login(loginRequest);
             return ResponseEntity.ok(ApiResponse.success("Login successful", authResponse));
+        } catch (PasswordHashingBusyException e) {
+            return busy("Login failed: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Login failed: " + e.getMessage()));
         }
@@ -38,8 +44,29 @@ public class AuthController {
         try {
             AuthResponse authResponse = authService.register(registerRequest);
             return ResponseEntity.ok(ApiResponse.success("Registration successful", authResponse));
+        } catch (PasswordHashingBusyException e) {
+            return busy("Registration failed: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Registration failed: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping("/availability")
+    @Operation(summary = "Check username and email availability", description = "Whether a username and/or email is free to register")
+    public ResponseEntity<ApiResponse<AvailabilityResponse>> checkAvailability(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email) {
+        try {
+            AvailabilityResponse availability = authService.checkAvailability(username, email);
+            return ResponseEntity.ok(ApiResponse.success("Availability checked successfully", availability));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to check availability: " + e.getMessage()));
+        }
+    }
+
+    private static ResponseEntity<ApiResponse<AuthResponse>> busy(String message) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ApiResponse.error(message));
+    }
+}
@@ -2,6 +2,8 @@ package com.renthouse.controller;
 
 import com.renthouse.dto.*;
 import com.renthouse.dto.request.*;
+import com.renthouse.fields.FieldSelection;
+import com.renthouse.fields.SparseFieldsets;
 import com.renthouse.service.OwnerService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -30,9 +32,10 @@ public class OwnerController {
 
     @GetMapping("/renthouses")
     @Operation(summary = "Get my renthouses", description = "Get all renthouses owned by the current user")
-    public ResponseEntity<ApiResponse<List<RenthouseDto>>> getMyRenthouses() {
+    @SparseFieldsets
+    public ResponseEntity<ApiResponse<List<RenthouseDto>>> getMyRenthouses(@RequestParam(required = false) String fields) {
         try {
-            List<RenthouseDto> renthouses = ownerService.getMyRenthouses();
+            List<RenthouseDto> renthouses = ownerService.getMyRenthouses(FieldSelection.parse(fields));
             return ResponseEntity.ok(ApiResponse.success("Renthouses retrieved successfully", renthouses));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get renthouses: " + e.getMessage()));
@@ -118,9 +121,10 @@ public class OwnerController {
 
     @GetMapping("/rooms")
     @Operation(summary = "Get my rooms", description = "Get all rooms owned by the current user")
-    public ResponseEntity<ApiResponse<List<RoomDto>>> getMyRooms() {
+    @SparseFieldsets
+    public ResponseEntity<ApiResponse<List<RoomSummary>>> getMyRooms() {
         try {
-            List<RoomDto> rooms = ownerService.getMyRooms();
+            List<RoomSummary> rooms = ownerService.getMyRooms();
             return ResponseEntity.ok(ApiResponse.success("Rooms retrieved successfully", rooms));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get rooms: " + e.getMessage()));
@@ -140,11 +144,12 @@ public class OwnerController {
 
     @GetMapping("/rooms/search")
     @Operation(summary = "Search my rooms", description = "Search rooms by room number or renter username")
-    public ResponseEntity<ApiResponse<List<RoomDto>>> searchMyRooms(
+    @SparseFieldsets
+    public ResponseEntity<ApiResponse<List<RoomSummary>>> searchMyRooms(
             @RequestParam(required = false) String roomNumber,
             @RequestParam(required = false) String username) {
         try {
-            List<RoomDto> rooms = ownerService.searchMyRooms(roomNumber, username);
+            List<RoomSummary> rooms = ownerService.searchMyRooms(roomNumber, username);
             return ResponseEntity.ok(ApiResponse.success("Room search completed successfully", rooms));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to search rooms: " + e.getMessage()));
@@ -164,9 +169,9 @@ public class OwnerController {
 
     @GetMapping("/payments")
     @Operation(summary = "Get my payments", description = "Get all payment records for properties owned by the current user")
-    public ResponseEntity<ApiResponse<List<PaymentDto>>> getMyPayments() {
+    public ResponseEntity<ApiResponse<List<PaymentSummary>>> getMyPayments() {
         try {
-            List<PaymentDto> payments = ownerService.getMyPayments();
+            List<PaymentSummary> payments = ownerService.getMyPayments();
             return ResponseEntity.ok(ApiResponse.success("Payment records retrieved successfully", payments));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get payment records: " + e.getMessage()));
@@ -175,9 +180,9 @@ public class OwnerController {
 
     @GetMapping("/rooms/{roomId}/payments")
     @Operation(summary = "Get room payments", description = "Get all payment records for a specific room")
-    public ResponseEntity<ApiResponse<List<PaymentDto>>> getRoomPayments(@PathVariable Long roomId) {
+    public ResponseEntity<ApiResponse<List<PaymentSummary>>> getRoomPayments(@PathVariable Long roomId) {
         try {
-            List<PaymentDto> payments = ownerService.getRoomPayments(roomId);
+            List<PaymentSummary> payments = ownerService.getRoomPayments(roomId);
             return ResponseEntity.ok(ApiResponse.success("Room payment records retrieved successfully", payments));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get room payment records: " + e.getMessage()));
@@ -252,6 +257,18 @@ public class OwnerController {
         }
     }
 
+    @PutMapping("/payments/status")
+    @Operation(summary = "Update payment statuses", description = "Mark many payments PAID at once, by ID or by month")
+    public ResponseEntity<ApiResponse<BulkPaymentStatusResult>> markPaymentsPaid(
+            @Valid @RequestBody BulkPaymentStatusRequest request) {
+        try {
+            BulkPaymentStatusResult result = ownerService.markPaymentsPaid(request);
+            return ResponseEntity.ok(ApiResponse.success("Payment statuses updated successfully", result));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to update payment statuses: " + e.getMessage()));
+        }
+    }
+
     @PutMapping("/payments/{paymentId}/status")
     @Operation(summary = "Update payment status", description = "Update payment status to PAID")
     public ResponseEntity<ApiResponse<PaymentDto>> updatePaymentStatus(@PathVariable Long paymentId) {
@@ -1,9 +1,15 @@
 package com.renthouse.controller;
 
 import com.renthouse.dto.ApiResponse;
-import com.renthouse.dto.PaymentDto;
+import com.renthouse.dto.ListingSearchResult;
+import com.renthouse.dto.MultiGetResult;
+import com.renthouse.dto.PaymentSummary;
 import com.renthouse.dto.RenthouseDto;
 import com.renthouse.dto.RoomDto;
+import com.renthouse.dto.RoomSummary;
+import com.renthouse.dto.Suggestion;
+import com.renthouse.fields.FieldSelection;
+import com.renthouse.fields.SparseFieldsets;
 import com.renthouse.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -30,9 +36,11 @@ public class UserController {
 
     @GetMapping("/renthouses/featured")
     @Operation(summary = "Get featured renthouses", description = "Get featured/popular renthouses for the dashboard")
-    public ResponseEntity<ApiResponse<List<RenthouseDto>>> getFeaturedRenthouses() {
+    @SparseFieldsets
+    public ResponseEntity<ApiResponse<List<RenthouseDto>>> getFeaturedRenthouses(
+            @RequestParam(required = false) String fields) {
         try {
-            List<RenthouseDto> renthouses = userService.getFeaturedRenthouses();
+            List<RenthouseDto> renthouses = userService.getFeaturedRenthouses(FieldSelection.parse(fields));
             return ResponseEntity.ok(ApiResponse.success("Featured renthouses retrieved successfully", renthouses));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get featured renthouses: " + e.getMessage()));
@@ -41,12 +49,15 @@ public class UserController {
 
     @GetMapping("/renthouses/nearby")
     @Operation(summary = "Get nearby renthouses", description = "Get popular renthouses near provided coordinates")
+    @SparseFieldsets
     public ResponseEntity<ApiResponse<List<RenthouseDto>>> getNearbyRenthouses(
             @RequestParam Double latitude,
             @RequestParam Double longitude,
-            @RequestParam(defaultValue = "10.0") Double radiusKm) {
+            @RequestParam(defaultValue = "10.0") Double radiusKm,
+            @RequestParam(required = false) String fields) {
         try {
-            List<RenthouseDto> renthouses = userService.getNearbyRenthouses(latitude, longitude, radiusKm);
+            List<RenthouseDto> renthouses = userService.getNearbyRenthouses(latitude, longitude, radiusKm,
+                    FieldSelection.parse(fields));
             return ResponseEntity.ok(ApiResponse.success("Nearby renthouses retrieved successfully", renthouses));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get nearby renthouses: " + e.getMessage()));
@@ -54,20 +65,72 @@ public class UserController {
     }
 
     @GetMapping("/renthouses/search")
-    @Operation(summary = "Search renthouses", description = "Search renthouses by name, location, or price range")
+    @Operation(summary = "Search renthouses", description = "Search renthouses by name, location, price range, room rent and availability; sort is RELEVANCE, RENT_ASC, RENT_DESC or AVAILABILITY")
+    @SparseFieldsets
     public ResponseEntity<ApiResponse<List<RenthouseDto>>> searchRenthouses(
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String location,
             @RequestParam(required = false) BigDecimal minPrice,
-            @RequestParam(required = false) BigDecimal maxPrice) {
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "false") boolean availableOnly,
+            @RequestParam(required = false) BigDecimal minRoomRent,
+            @RequestParam(required = false) BigDecimal maxRoomRent,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields) {
         try {
-            List<RenthouseDto> renthouses = userService.searchRenthouses(name, location, minPrice, maxPrice);
+            List<RenthouseDto> renthouses = userService.searchRenthouses(name, location, minPrice, maxPrice,
+                    availableOnly, minRoomRent, maxRoomRent, sort, FieldSelection.parse(fields));
             return ResponseEntity.ok(ApiResponse.success("Renthouses search completed successfully", renthouses));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to search renthouses: " + e.getMessage()));
         }
     }
 
+    @GetMapping("/renthouses/listings")
+    @Operation(summary = "Search listings with facets", description = "Fast faceted listing search by text, base rent, room rent and availability")
+    public ResponseEntity<ApiResponse<ListingSearchResult>> searchListings(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) BigDecimal minRoomRent,
+            @RequestParam(required = false) BigDecimal maxRoomRent,
+            @RequestParam(defaultValue = "false") boolean availableOnly,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            ListingSearchResult result = userService.searchListings(q, minPrice, maxPrice, minRoomRent, maxRoomRent,
+                    availableOnly, limit);
+            return ResponseEntity.ok(ApiResponse.success("Listing search completed successfully", result));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to search listings: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/renthouses/suggest")
+    @Operation(summary = "Suggest renthouses", description = "Typeahead suggestions of renthouse names and locations, most popular first")
+    public ResponseEntity<ApiResponse<List<Suggestion>>> suggestRenthouses(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        try {
+            List<Suggestion> suggestions = userService.suggestRenthouses(q, limit);
+            return ResponseEntity.ok(ApiResponse.success("Suggestions retrieved successfully", suggestions));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to suggest renthouses: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/renthouses")
+    @Operation(summary = "Get renthouses by IDs", description = "Get several renthouses at once, in the order of the given IDs")
+    @SparseFieldsets(within = "items")
+    public ResponseEntity<ApiResponse<MultiGetResult<RenthouseDto>>> getRenthousesByIds(
+            @RequestParam List<Long> ids, @RequestParam(required = false) String fields) {
+        try {
+            MultiGetResult<RenthouseDto> renthouses = userService.getRenthousesByIds(ids, FieldSelection.parse(fields));
+            return ResponseEntity.ok(ApiResponse.success("Renthouses retrieved successfully", renthouses));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get renthouses: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/renthouses/{id}")
     @Operation(summary = "Get renthouse details", description = "Get detailed information about a renthouse")
     public ResponseEntity<ApiResponse<RenthouseDto>> getRenthouseDetails(@PathVariable Long id) {
@@ -79,6 +142,19 @@ public class UserController {
         }
     }
 
+    @GetMapping("/rooms")
+    @Operation(summary = "Get rooms by IDs", description = "Get several rooms at once, in the order of the given IDs")
+    @SparseFieldsets(within = "items")
+    public ResponseEntity<ApiResponse<MultiGetResult<RoomDto>>> getRoomsByIds(
+            @RequestParam List<Long> ids, @RequestParam(required = false) String fields) {
+        try {
+            MultiGetResult<RoomDto> rooms = userService.getRoomsByIds(ids, FieldSelection.parse(fields));
+            return ResponseEntity.ok(ApiResponse.success("Rooms retrieved successfully", rooms));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get rooms: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/rooms/{id}")
     @Operation(summary = "Get room details by ID", description = "Get detailed information about a specific room")
     public ResponseEntity<ApiResponse<RoomDto>> getRoomById(@PathVariable Long id) {
@@ -92,9 +168,9 @@ public class UserController {
 
     @GetMapping("/rooms/{id}/payments")
     @Operation(summary = "Get payments for a room", description = "Get the payment history for a specific room")
-    public ResponseEntity<ApiResponse<List<PaymentDto>>> getPaymentsForRoom(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<List<PaymentSummary>>> getPaymentsForRoom(@PathVariable Long id) {
         try {
-            List<PaymentDto> payments = userService.getPaymentsForRoom(id);
+            List<PaymentSummary> payments = userService.getPaymentsForRoom(id);
             return ResponseEntity.ok(ApiResponse.success("Room payments retrieved successfully", payments));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get room payments: " + e.getMessage()));
@@ -103,9 +179,10 @@ public class UserController {
 
     @GetMapping("/renthouses/{id}/rooms/available")
     @Operation(summary = "Get available rooms", description = "Get all available rooms in a renthouse")
-    public ResponseEntity<ApiResponse<List<RoomDto>>> getAvailableRooms(@PathVariable Long id) {
+    @SparseFieldsets
+    public ResponseEntity<ApiResponse<List<RoomSummary>>> getAvailableRooms(@PathVariable Long id) {
         try {
-            List<RoomDto> rooms = userService.getAvailableRooms(id);
+            List<RoomSummary> rooms = userService.getAvailableRooms(id);
             return ResponseEntity.ok(ApiResponse.success("Available rooms retrieved successfully", rooms));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get available rooms: " + e.getMessage()));
@@ -192,9 +269,10 @@ public class UserController {
 
     @GetMapping("/bookings/all")
     @Operation(summary = "Get all my bookings", description = "Get a list of all rooms booked by the current user")
-    public ResponseEntity<ApiResponse<List<RoomDto>>> getAllMyBookings() {
+    @SparseFieldsets
+    public ResponseEntity<ApiResponse<List<RoomSummary>>> getAllMyBookings() {
         try {
-            List<RoomDto> bookings = userService.getAllMyBookings();
+            List<RoomSummary> bookings = userService.getAllMyBookings();
             return ResponseEntity.ok(ApiResponse.success("All bookings retrieved successfully", bookings));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve bookings: " + e.getMessage()));
@@ -203,9 +281,10 @@ public class UserController {
 
     @GetMapping("/favorites")
     @Operation(summary = "Get favorite rooms", description = "Get all favorite rooms")
-    public ResponseEntity<ApiResponse<List<RoomDto>>> getFavoriteRooms() {
+    @SparseFieldsets
+    public ResponseEntity<ApiResponse<List<RoomSummary>>> getFavoriteRooms() {
         try {
-            List<RoomDto> rooms = userService.getFavoriteRooms();
+            List<RoomSummary> rooms = userService.getFavoriteRooms();
             return ResponseEntity.ok(ApiResponse.success("Favorite rooms retrieved successfully", rooms));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get favorite rooms: " + e.getMessage()));
@@ -214,9 +293,9 @@ public class UserController {
 
     @GetMapping("/payments")
     @Operation(summary = "Get my payments", description = "Get all payment records for the current user")
-    public ResponseEntity<ApiResponse<List<PaymentDto>>> getMyPayments() {
+    public ResponseEntity<ApiResponse<List<PaymentSummary>>> getMyPayments() {
         try {
-            List<PaymentDto> payments = userService.getMyPayments();
+            List<PaymentSummary> payments = userService.getMyPayments();
             return ResponseEntity.ok(ApiResponse.success("Payment records retrieved successfully", payments));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get payment records: " + e.getMessage()));
@@ -225,27 +304,20 @@ public class UserController {
 
     @GetMapping("/payments/pending")
     @Operation(summary = "Get pending payments", description = "Get all pending/unpaid payment records for the current user")
-    public ResponseEntity<ApiResponse<List<PaymentDto>>> getMyPendingPayments() {
+    public ResponseEntity<ApiResponse<List<PaymentSummary>>> getMyPendingPayments() {
         try {
-            List<PaymentDto> pendingPayments = userService.getMyPendingPayments();
-            System.out.println("DEBUG: Found " + pendingPayments.size() + " pending payments for user");
-            for (PaymentDto payment : pendingPayments) {
-                System.out.println("DEBUG: Payment ID=" + payment.getId() + ", Status=" + payment.getStatus() + 
-                                 ", Month=" + payment.getPaymentMonth() + ", Amount=" + payment.getTotalAmount());
-            }
+            List<PaymentSummary> pendingPayments = userService.getMyPendingPayments();
             return ResponseEntity.ok(ApiResponse.success("Pending payment records retrieved successfully", pendingPayments));
         } catch (Exception e) {
-            System.out.println("DEBUG: Error in getMyPendingPayments: " + e.getMessage());
-            e.printStackTrace();
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get pending payment records: " + e.getMessage()));
         }
     }
 
     @GetMapping("/payments/status/{status}")
     @Operation(summary = "Get payments by status", description = "Get payment records filtered by status")
-    public ResponseEntity<ApiResponse<List<PaymentDto>>> getMyPaymentsByStatus(@PathVariable String status) {
+    public ResponseEntity<ApiResponse<List<PaymentSummary>>> getMyPaymentsByStatus(@PathVariable String status) {
         try {
-            List<PaymentDto> payments = userService.getMyPaymentsByStatus(status.toUpperCase());
+            List<PaymentSummary> payments = userService.getMyPaymentsByStatus(status.toUpperCase());
             return ResponseEntity.ok(ApiResponse.success("Payment records retrieved successfully", payments));
 
 
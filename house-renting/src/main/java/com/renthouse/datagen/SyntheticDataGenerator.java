@@ -0,0 +1,331 @@
+package com.renthouse.datagen;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Fills the database with a synthetic dataset for load testing: owners with several renthouses,
+ * floors and rooms, tenants renting most rooms, a multi-year payment history per rental and a
+ * few favorites per tenant. Rows are written with JDBC batches, not through JPA.
+ *
+ * Run once against an empty database with --datagen.enabled=true. Generated accounts are
+ * gen_owner0..N and gen_tenant0..N, all with the password "password".
+ */
+@Component
+@ConditionalOnProperty(name = "datagen.enabled", havingValue = "true")
+public class SyntheticDataGenerator implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    // BCrypt hash of "password", same as the sample data in RenthouseApplication
+    private static final String PASSWORD_HASH = "$2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2.uheWG/igi";
+
+    private static final String USER_INSERT =
+            "INSERT INTO users (username, email, password, full_name, phone_number, role, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String RENTHOUSE_INSERT =
+            "INSERT INTO renthouses (name, address, description, latitude, longitude, base_rent, water_fee, " +
+            "electricity_fee, owner_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String FLOOR_INSERT =
+            "INSERT INTO floors (floor_number, description, renthouse_id, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private static final String ROOM_INSERT =
+            "INSERT INTO rooms (room_number, description, monthly_rent, deposit, status, booked_at, floor_id, " +
+            "renter_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String PAYMENT_INSERT =
+            "INSERT INTO payments (type, payment_month, room_fee, electricity_fee, water_fee, other_charges, " +
+            "other_charges_description, total_amount, status, qr_code_data, paid_at, created_at, updated_at, " +
+            "room_id, user_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String FAVORITE_INSERT =
+            "INSERT INTO favorites (user_id, room_id, created_at) VALUES (?, ?, ?)";
+
+    private static final String[] STREETS = {"Norodom Blvd", "Monivong Blvd", "Sihanouk Blvd", "Mao Tse Toung Blvd",
+            "Russian Blvd", "Street 63", "Street 51", "Street 271", "Kampuchea Krom Blvd", "Street 2004"};
+    private static final String[] DISTRICTS = {"Daun Penh", "Chamkarmon", "Toul Kork", "Sen Sok", "Chbar Ampov",
+            "Meanchey", "Russey Keo", "Por Senchey"};
+    private static final String[] NAMES = {"Sunrise", "Lotus", "Riverside", "Golden", "Palm", "Royal", "Green Park",
+            "Sky", "Mekong", "Central"};
+    private static final String[] KINDS = {"Residence", "Apartments", "Villa", "Tower", "Court", "House"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${datagen.owners:50}")
+    private int owners;
+
+    @Value("${datagen.renthouses-per-owner:4}")
+    private int renthousesPerOwner;
+
+    @Value("${datagen.floors-per-renthouse:4}")
+    private int floorsPerRenthouse;
+
+    @Value("${datagen.rooms-per-floor:8}")
+    private int roomsPerFloor;
+
+    @Value("${datagen.tenants:2000}")
+    private int tenants;
+
+    @Value("${datagen.occupancy:0.75}")
+    private double occupancy;
+
+    @Value("${datagen.payment-years:2}")
+    private int paymentYears;
+
+    @Value("${datagen.favorites-per-tenant:5}")
+    private int favoritesPerTenant;
+
+    @Value("${datagen.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${datagen.seed:42}")
+    private long seed;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE username = 'gen_owner0'", Integer.class);
+        if (existing != null && existing > 0) {
+            logger.info("Synthetic dataset already present, skipping generation");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        generate(new Random(seed));
+        logger.info("Synthetic dataset generated in {} ms", System.currentTimeMillis() - start);
+    }
+
+    private void generate(Random random) {
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Object[]> ownerRows = new ArrayList<>();
+        for (int i = 0; i < owners; i++) {
+            ownerRows.add(userRow("gen_owner" + i, "OWNER", random, now));
+        }
+        List<Long> ownerIds = insertReturningIds(USER_INSERT, ownerRows);
+
+        List<Object[]> tenantRows = new ArrayList<>();
+        for (int i = 0; i < tenants; i++) {
+            tenantRows.add(userRow("gen_tenant" + i, "USER", random, now));
+        }
+        List<Long> tenantIds = insertReturningIds(USER_INSERT, tenantRows);
+        logger.info("Inserted {} owners and {} tenants", ownerIds.size(), tenantIds.size());
+
+        List<Object[]> renthouseRows = new ArrayList<>();
+        for (Long ownerId : ownerIds) {
+            for (int r = 0; r < renthousesPerOwner; r++) {
+                String street = STREETS[random.nextInt(STREETS.length)];
+                String district = DISTRICTS[random.nextInt(DISTRICTS.length)];
+                BigDecimal baseRent = BigDecimal.valueOf(100 + random.nextInt(30) * 10L);
+                renthouseRows.add(new Object[]{
+                        NAMES[random.nextInt(NAMES.length)] + " " + KINDS[random.nextInt(KINDS.length)] + " " + (r + 1),
+                        (1 + random.nextInt(400)) + " " + street + ", " + district + ", Phnom Penh",
+                        "Rooms near " + street + " with parking, Wi-Fi and 24h security",
+                        // Spread over roughly 20 km around central Phnom Penh
+                        11.55 + (random.nextDouble() - 0.5) * 0.2,
+                        104.92 + (random.nextDouble() - 0.5) * 0.2,
+                        baseRent,
+                        new BigDecimal("5.00"),
+                        new BigDecimal("0.25"),
+                        ownerId,
+                        now,
+                        now});
+            }
+        }
+        List<Long> renthouseIds = insertReturningIds(RENTHOUSE_INSERT, renthouseRows);
+
+        List<Object[]> floorRows = new ArrayList<>();
+        List<Integer> floorNumbers = new ArrayList<>();
+        for (Long renthouseId : renthouseIds) {
+            for (int f = 1; f <= floorsPerRenthouse; f++) {
+                floorRows.add(new Object[]{f, "Floor " + f, renthouseId, now, now});
+                floorNumbers.add(f);
+            }
+        }
+        List<Long> floorIds = insertReturningIds(FLOOR_INSERT, floorRows);
+        logger.info("Inserted {} renthouses and {} floors", renthouseIds.size(), floorIds.size());
+
+        List<Object[]> roomRows = new ArrayList<>();
+        List<Long> roomRenters = new ArrayList<>();
+        List<LocalDateTime> roomBookedAt = new ArrayList<>();
+        List<BigDecimal> roomRents = new ArrayList<>();
+        int rented = 0;
+        for (int f = 0; f < floorIds.size(); f++) {
+            for (int n = 1; n <= roomsPerFloor; n++) {
+                BigDecimal rent = BigDecimal.valueOf(80 + random.nextInt(25) * 10L);
+                Long renterId = null;
+                LocalDateTime bookedAt = null;
+                String status = "AVAILABLE";
+                if (!tenantIds.isEmpty() && random.nextDouble() < occupancy) {
+                    renterId = tenantIds.get(rented++ % tenantIds.size());
+                    bookedAt = now.minusDays(random.nextInt(Math.max(1, paymentYears * 365)));
+                    status = random.nextInt(10) == 0 ? "BOOKED" : "OCCUPIED";
+                }
+                roomRows.add(new Object[]{
+                        String.valueOf(floorNumbers.get(f) * 100 + n),
+                        "Room " + n + " with " + (random.nextBoolean() ? "balcony" : "window") + " and private bathroom",
+                        rent,
+                        rent.multiply(BigDecimal.valueOf(2)),
+                        status,
+                        bookedAt,
+                        floorIds.get(f),
+                        renterId,
+                        now,
+                        now});
+                roomRenters.add(renterId);
+                roomBookedAt.add(bookedAt);
+                roomRents.add(rent);
+            }
+        }
+        List<Long> roomIds = insertReturningIds(ROOM_INSERT, roomRows);
+        logger.info("Inserted {} rooms, {} rented", roomIds.size(), rented);
+
+        int payments = insertPayments(random, now, roomIds, roomRenters, roomBookedAt, roomRents);
+        logger.info("Inserted {} payments", payments);
+
+        int favorites = insertFavorites(random, now, tenantIds, roomIds);
+        logger.info("Inserted {} favorites", favorites);
+    }
+
+    private int insertPayments(Random random, LocalDateTime now, List<Long> roomIds, List<Long> roomRenters,
+                               List<LocalDateTime> roomBookedAt, List<BigDecimal> roomRents) {
+        LocalDate currentMonth = now.toLocalDate().withDayOfMonth(1);
+        List<Object[]> batch = new ArrayList<>();
+        int total = 0;
+        for (int i = 0; i < roomIds.size(); i++) {
+            Long renterId = roomRenters.get(i);
+            if (renterId == null) {
+                continue;
+            }
+            for (LocalDate month = roomBookedAt.get(i).toLocalDate().withDayOfMonth(1);
+                 !month.isAfter(currentMonth); month = month.plusMonths(1)) {
+                BigDecimal roomFee = roomRents.get(i);
+                BigDecimal electricityFee = new BigDecimal("0.25")
+                        .multiply(BigDecimal.valueOf(60 + random.nextInt(140)))
+                        .setScale(2, RoundingMode.HALF_UP);
+                BigDecimal waterFee = new BigDecimal("5.00");
+                BigDecimal otherCharges = random.nextInt(4) == 0 ? new BigDecimal("2.50") : null;
+                BigDecimal totalAmount = roomFee.add(electricityFee).add(waterFee)
+                        .add(otherCharges != null ? otherCharges : BigDecimal.ZERO);
+                // The current month is still open; older months are paid apart from a few stragglers
+                boolean paid = month.isBefore(currentMonth) && random.nextInt(20) != 0;
+                LocalDateTime createdAt = month.atStartOfDay();
+                batch.add(new Object[]{
+                        "MONTHLY",
+                        month,
+                        roomFee,
+                        electricityFee,
+                        waterFee,
+                        otherCharges,
+                        otherCharges != null ? "Trash collection" : null,
+                        totalAmount,
+                        paid ? "PAID" : "PENDING",
+                        "PAYMENT:" + roomIds.get(i) + ":" + month,
+                        paid ? createdAt.plusDays(1 + random.nextInt(10)) : null,
+                        createdAt,
+                        createdAt,
+                        roomIds.get(i),
+                        renterId});
+                if (batch.size() == batchSize) {
+                    total += insert(PAYMENT_INSERT, batch);
+                    batch.clear();
+                }
+            }
+        }
+        total += insert(PAYMENT_INSERT, batch);
+        return total;
+    }
+
+    private int insertFavorites(Random random, LocalDateTime now, List<Long> tenantIds, List<Long> roomIds) {
+        int perTenant = Math.min(favoritesPerTenant, roomIds.size());
+        List<Object[]> batch = new ArrayList<>();
+        int total = 0;
+        for (Long tenantId : tenantIds) {
+            Set<Long> picked = new HashSet<>();
+            while (picked.size() < perTenant) {
+                picked.add(roomIds.get(random.nextInt(roomIds.size())));
+            }
+            for (Long roomId : picked) {
+                batch.add(new Object[]{tenantId, roomId, now});
+            }
+            if (batch.size() >= batchSize) {
+                total += insert(FAVORITE_INSERT, batch);
+                batch.clear();
+            }
+        }
+        total += insert(FAVORITE_INSERT, batch);
+        return total;
+    }
+
+    private Object[] userRow(String username, String role, Random random, LocalDateTime now) {
+        return new Object[]{
+                username,
+                username + "@example.com",
+                PASSWORD_HASH,
+                "Synthetic " + username,
+                "0" + (10_000_000 + random.nextInt(89_999_999)),
+                role,
+                now,
+                now};
+    }
+
+    /** Batch insert in chunks of batch-size, returning the generated ids in row order. */
+    private List<Long> insertReturningIds(String sql, List<Object[]> rows) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<Object[]> chunk = rows.subList(from, Math.min(rows.size(), from + batchSize));
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(con -> con.prepareStatement(sql, new String[]{"id"}), setter(chunk), keyHolder);
+            for (Map<String, Object> keys : keyHolder.getKeyList()) {
+                ids.add(((Number) keys.get("id")).longValue());
+            }
+        }
+        return ids;
+    }
+
+    private int insert(String sql, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(sql, setter(rows));
+        return rows.size();
+    }
+
+    private static BatchPreparedStatementSetter setter(List<Object[]> rows) {
+        return new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Object[] row = rows.get(i);
+                for (int column = 0; column < row.length; column++) {
+                    ps.setObject(column + 1, row[column]);
+                }
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        };
+    }
+}
@@ -0,0 +1,5 @@
+package com.renthouse.dto;
+
+/** Whether a username and an email are free to register; null for the ones not asked about. */
+public record AvailabilityResponse(Boolean usernameAvailable, Boolean emailAvailable) {
+}
@@ -0,0 +1,14 @@
+package com.renthouse.dto;
+
+import java.util.List;
+
+/** Outcome of a bulk mark-as-paid: how many payments changed, and what happened to each one asked for. */
+public record BulkPaymentStatusResult(int updated, List<Item> results) {
+
+    public record Item(Long paymentId, Outcome outcome) {
+    }
+
+    public enum Outcome {
+        UPDATED, ALREADY_PAID, NOT_FOUND, ACCESS_DENIED
+    }
+}
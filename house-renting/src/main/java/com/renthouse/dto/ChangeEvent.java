@@ -0,0 +1,27 @@
+package com.renthouse.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A payment or booking change pushed to /api/events subscribers; paymentId is null for bookings.
+ * PAYMENTS_PAID reports a bulk mark-as-paid as one event: paymentIds lists the payments, and
+ * paymentId and roomId are null.
+ */
+public record ChangeEvent(Type type, Long paymentId, Long roomId, String status, LocalDateTime occurredAt,
+                          @JsonInclude(JsonInclude.Include.NON_NULL) List<Long> paymentIds) {
+
+    public enum Type {
+        PAYMENT_CREATED, PAYMENT_STATUS_CHANGED, PAYMENTS_PAID, ROOM_BOOKED
+    }
+
+    public ChangeEvent(Type type, Long paymentId, Long roomId, String status, LocalDateTime occurredAt) {
+        this(type, paymentId, roomId, status, occurredAt, null);
+    }
+
+    public static ChangeEvent paymentsPaid(List<Long> paymentIds, LocalDateTime occurredAt) {
+        return new ChangeEvent(Type.PAYMENTS_PAID, null, null, "PAID", occurredAt, paymentIds);
+    }
+}
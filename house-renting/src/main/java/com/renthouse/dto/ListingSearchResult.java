@@ -0,0 +1,20 @@
+package com.renthouse.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response of the in-memory listing search: the best hits plus facet counts over every match.
+ * The price buckets ignore the price filter, so they show how many listings each bucket would add.
+ */
+public record ListingSearchResult(List<Hit> hits, int total, Facets facets, long tookMicros) {
+
+    public record Hit(Long renthouseId, String name, String address, BigDecimal baseRent,
+                      int totalRooms, int availableRooms, BigDecimal minAvailableRent) {
+    }
+
+    public record Facets(Map<String, Integer> priceBuckets, Map<String, Integer> roomStatus,
+                         int renthousesWithAvailableRooms, int availableRooms) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.renthouse.dto;
+
+import java.util.List;
+
+/**
+ * Entities fetched by an id list, in the order the ids were given; ids that do not exist or may not
+ * be viewed are listed separately instead.
+ */
+public record MultiGetResult<T>(List<T> items, List<Long> notFound, List<Long> accessDenied) {
+}
@@ -0,0 +1,42 @@
+package com.renthouse.dto;
+
+import com.renthouse.entity.Payment;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only payment row for list endpoints, built by JPQL constructor expressions in
+ * PaymentRepository. Serializes to the same JSON as PaymentDto.
+ */
+public record PaymentSummary(
+        Long id,
+        String type,
+        LocalDate paymentMonth,
+        BigDecimal roomFee,
+        BigDecimal electricityFee,
+        BigDecimal waterFee,
+        BigDecimal otherCharges,
+        String otherChargesDescription,
+        BigDecimal totalAmount,
+        String status,
+        String qrCodeData,
+        LocalDateTime paidAt,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Long roomId,
+        String roomNumber,
+        Long userId,
+        String userName) {
+
+    public PaymentSummary(Long id, String type, LocalDate paymentMonth, BigDecimal roomFee, BigDecimal electricityFee,
+                          BigDecimal waterFee, BigDecimal otherCharges, String otherChargesDescription,
+                          BigDecimal totalAmount, Payment.PaymentStatus status, String qrCodeData,
+                          LocalDateTime paidAt, LocalDateTime createdAt, LocalDateTime updatedAt,
+                          Long roomId, String roomNumber, Long userId, String userName) {
+        this(id, type, paymentMonth, roomFee, electricityFee, waterFee, otherCharges, otherChargesDescription,
+                totalAmount, status != null ? status.name() : null, qrCodeData, paidAt, createdAt, updatedAt,
+                roomId, roomNumber, userId, userName);
+    }
+}
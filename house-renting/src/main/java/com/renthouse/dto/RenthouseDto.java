@@ -43,6 +43,11 @@ public class RenthouseDto {
     private LocalDateTime updatedAt;
     private Long ownerId;
     private String ownerName;
+
+    private Integer totalRooms;
+    private Integer availableRooms;
+    private BigDecimal minAvailableRent;
+    private BigDecimal maxAvailableRent;
     
     private List<FloorDto> floors;
     
@@ -183,4 +188,36 @@ public class RenthouseDto {
     public void setAmenities(List<String> amenities) {
         this.amenities = amenities;
     }
-}
\ No newline at end of file
+
+    public Integer getTotalRooms() {
+        return totalRooms;
+    }
+
+    public void setTotalRooms(Integer totalRooms) {
+        this.totalRooms = totalRooms;
+    }
+
+    public Integer getAvailableRooms() {
+        return availableRooms;
+    }
+
+    public void setAvailableRooms(Integer availableRooms) {
+        this.availableRooms = availableRooms;
+    }
+
+    public BigDecimal getMinAvailableRent() {
+        return minAvailableRent;
+    }
+
+    public void setMinAvailableRent(BigDecimal minAvailableRent) {
+        this.minAvailableRent = minAvailableRent;
+    }
+
+    public BigDecimal getMaxAvailableRent() {
+        return maxAvailableRent;
+    }
+
+    public void setMaxAvailableRent(BigDecimal maxAvailableRent) {
+        this.maxAvailableRent = maxAvailableRent;
+    }
+}
@@ -0,0 +1,58 @@
+package com.renthouse.dto;
+
+import com.renthouse.entity.Room;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only room row for list endpoints, built by JPQL constructor expressions in RoomRepository and
+ * FavoriteRepository. Serializes to the same JSON as RoomDto.
+ */
+public record RoomSummary(
+        Long id,
+        String roomNumber,
+        String description,
+        BigDecimal monthlyRent,
+        BigDecimal deposit,
+        Room.RoomStatus status,
+        LocalDateTime bookedAt,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Long floorId,
+        Integer floorNumber,
+        Long renthouseId,
+        String renthouseName,
+        Long renterId,
+        String renterName,
+        Boolean isFavorite,
+        Boolean isOccupied,
+        String renterFullName,
+        String renthouseAddress,
+        String renterUsername,
+        String renterEmail,
+        String renterPhone,
+        LocalDateTime moveInDate) {
+
+    /** Owner view: full renter contact details, no favorite flag. */
+    public RoomSummary(Long id, String roomNumber, String description, BigDecimal monthlyRent, BigDecimal deposit,
+                       Room.RoomStatus status, LocalDateTime bookedAt, LocalDateTime createdAt, LocalDateTime updatedAt,
+                       Long floorId, Integer floorNumber, Long renthouseId, String renthouseName,
+                       Long renterId, String renterFullName, String renterUsername, String renterEmail,
+                       String renterPhone) {
+        this(id, roomNumber, description, monthlyRent, deposit, status, bookedAt, createdAt, updatedAt,
+                floorId, floorNumber, renthouseId, renthouseName, renterId, renterFullName, null,
+                status != Room.RoomStatus.AVAILABLE, renterFullName, null, renterUsername, renterEmail, renterPhone,
+                renterId != null ? bookedAt : null);
+    }
+
+    /** Tenant view: renter name only, plus whether the current user has the room as a favorite. */
+    public RoomSummary(Long id, String roomNumber, String description, BigDecimal monthlyRent, BigDecimal deposit,
+                       Room.RoomStatus status, LocalDateTime bookedAt, LocalDateTime createdAt, LocalDateTime updatedAt,
+                       Long floorId, Integer floorNumber, Long renthouseId, String renthouseName,
+                       Long renterId, String renterFullName, Boolean isFavorite) {
+        this(id, roomNumber, description, monthlyRent, deposit, status, bookedAt, createdAt, updatedAt,
+                floorId, floorNumber, renthouseId, renthouseName, renterId, renterFullName, isFavorite,
+                status != Room.RoomStatus.AVAILABLE, renterFullName, null, null, null, null, null);
+    }
+}
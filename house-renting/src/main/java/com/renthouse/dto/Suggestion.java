@@ -0,0 +1,9 @@
+package com.renthouse.dto;
+
+/** A typeahead suggestion: a renthouse by name, or a place taken from renthouse addresses. */
+public record Suggestion(String text, Type type, Long renthouseId) {
+
+    public enum Type {
+        RENTHOUSE, LOCATION
+    }
+}
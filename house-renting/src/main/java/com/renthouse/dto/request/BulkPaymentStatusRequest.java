@@ -0,0 +1,53 @@
+package com.renthouse.dto.request;
+
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Payments to mark PAID: either paymentIds, or every payment of paymentMonth (optionally only in
+ * renthouseId, and only with the given statuses, PENDING and OVERDUE by default).
+ */
+public class BulkPaymentStatusRequest {
+    @Size(max = 1000, message = "At most 1000 payment IDs per request")
+    private List<Long> paymentIds;
+
+    private LocalDate paymentMonth;
+
+    private Long renthouseId;
+
+    private List<String> statuses;
+
+    public List<Long> getPaymentIds() {
+        return paymentIds;
+    }
+
+    public void setPaymentIds(List<Long> paymentIds) {
+        this.paymentIds = paymentIds;
+    }
+
+    public LocalDate getPaymentMonth() {
+        return paymentMonth;
+    }
+
+    public void setPaymentMonth(LocalDate paymentMonth) {
+        this.paymentMonth = paymentMonth;
+    }
+
+    public Long getRenthouseId() {
+        return renthouseId;
+    }
+
+    public void setRenthouseId(Long renthouseId) {
+        this.renthouseId = renthouseId;
+    }
+
+    public List<String> getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(List<String> statuses) {
+        this.statuses = statuses;
+    }
+}
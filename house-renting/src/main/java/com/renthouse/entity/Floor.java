@@ -9,7 +9,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "floors")
+@Table(name = "floors", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"renthouse_id", "floor_number"})
+})
 public class Floor {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -29,6 +31,10 @@ public class Floor {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Last numeric room number handed out; advanced only by FloorRepository.allocateRoomNumber
+    @Column(name = "room_sequence", updatable = false)
+    private Integer roomSequence;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "renthouse_id", nullable = false)
     private Renthouse renthouse;
@@ -87,6 +93,14 @@ public class Floor {
         this.updatedAt = updatedAt;
     }
 
+    public Integer getRoomSequence() {
+        return roomSequence;
+    }
+
+    public void setRoomSequence(Integer roomSequence) {
+        this.roomSequence = roomSequence;
+    }
+
     public Renthouse getRenthouse() {
         return renthouse;
     }
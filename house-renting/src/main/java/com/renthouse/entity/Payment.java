@@ -9,7 +9,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+    @Index(name = "idx_payments_status_created_at", columnList = "status, created_at"),
+    @Index(name = "idx_payments_user_status_month", columnList = "user_id, status, payment_month")
+})
 public class Payment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -85,7 +88,7 @@ public class Payment {
         calculateTotalAmount();
     }
 
-    private void calculateTotalAmount() {
+    void calculateTotalAmount() {
         BigDecimal total = BigDecimal.ZERO;
         if (roomFee != null) total = total.add(roomFee);
         if (electricityFee != null) total = total.add(electricityFee);
@@ -12,7 +12,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "renthouses")
+@Table(name = "renthouses", indexes = {
+    @Index(name = "idx_renthouses_min_available_rent", columnList = "min_available_rent"),
+    @Index(name = "idx_renthouses_max_available_rent", columnList = "max_available_rent"),
+    @Index(name = "idx_renthouses_available_rooms", columnList = "available_rooms")
+})
 public class Renthouse {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -63,6 +67,24 @@ public class Renthouse {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Last floor number handed out; advanced only by RenthouseRepository.allocateFloorNumber
+    @Column(name = "floor_sequence", updatable = false)
+    private Integer floorSequence;
+
+    // Stats over the rooms, for room-level search filters. Written only by RoomStatsService, through
+    // RenthouseRepository.refreshRoomStats; the rent columns are null while no room is available
+    @Column(name = "total_rooms", updatable = false)
+    private Integer totalRooms = 0;
+
+    @Column(name = "available_rooms", updatable = false)
+    private Integer availableRooms = 0;
+
+    @Column(name = "min_available_rent", precision = 10, scale = 2, updatable = false)
+    private BigDecimal minAvailableRent;
+
+    @Column(name = "max_available_rent", precision = 10, scale = 2, updatable = false)
+    private BigDecimal maxAvailableRent;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id", nullable = false)
     private User owner;
@@ -185,6 +207,46 @@ public class Renthouse {
         this.updatedAt = updatedAt;
     }
 
+    public Integer getFloorSequence() {
+        return floorSequence;
+    }
+
+    public void setFloorSequence(Integer floorSequence) {
+        this.floorSequence = floorSequence;
+    }
+
+    public Integer getTotalRooms() {
+        return totalRooms;
+    }
+
+    public void setTotalRooms(Integer totalRooms) {
+        this.totalRooms = totalRooms;
+    }
+
+    public Integer getAvailableRooms() {
+        return availableRooms;
+    }
+
+    public void setAvailableRooms(Integer availableRooms) {
+        this.availableRooms = availableRooms;
+    }
+
+    public BigDecimal getMinAvailableRent() {
+        return minAvailableRent;
+    }
+
+    public void setMinAvailableRent(BigDecimal minAvailableRent) {
+        this.minAvailableRent = minAvailableRent;
+    }
+
+    public BigDecimal getMaxAvailableRent() {
+        return maxAvailableRent;
+    }
+
+    public void setMaxAvailableRent(BigDecimal maxAvailableRent) {
+        this.maxAvailableRent = maxAvailableRent;
+    }
+
     public User getOwner() {
         return owner;
     }
@@ -12,7 +12,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "rooms")
+@Table(name = "rooms", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"floor_id", "room_number"})
+})
 public class Room {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
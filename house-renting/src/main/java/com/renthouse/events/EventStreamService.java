@@ -0,0 +1,197 @@
+package com.renthouse.events;
+
+import com.renthouse.config.AfterCommit;
+import com.renthouse.dto.ChangeEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Fan-out registry behind GET /api/events: pushes payment and booking changes to the users they
+ * concern once the writing transaction commits, so clients stop polling the payment lists.
+ *
+ * An open stream is an async request parked in Tomcat, holding a socket but no thread. Each
+ * subscription has its own small queue, drained by at most one task at a time on the application
+ * task executor (virtual threads when enabled), so events reach a client in order and a slow client
+ * never blocks the request that published. A client that falls max-pending events behind is
+ * disconnected; EventSource reconnects on its own.
+ */
+@Service
+public class EventStreamService {
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor taskExecutor;
+
+    @Value("${events.stream.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${events.stream.max-connections:20000}")
+    private int maxConnections;
+
+    @Value("${events.stream.max-per-user:5}")
+    private int maxPerUser;
+
+    @Value("${events.stream.max-pending:100}")
+    private int maxPending;
+
+    private final ConcurrentHashMap<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Counter dropped;
+
+    public EventStreamService(MeterRegistry meterRegistry) {
+        Gauge.builder("events.stream.connections", connections, AtomicInteger::get)
+                .description("Open event streams")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("events.stream.dropped")
+                .description("Event streams closed because the client fell too far behind")
+                .register(meterRegistry);
+    }
+
+    /** Opens a stream for the user; empty when max-connections streams are already open. */
+    public Optional<SseEmitter> subscribe(Long userId) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            return Optional.empty();
+        }
+        Subscription subscription = new Subscription(userId, new SseEmitter(timeoutMillis));
+        SseEmitter emitter = subscription.emitter;
+        emitter.onCompletion(() -> remove(subscription));
+        // Completing on timeout ends the stream normally instead of with an AsyncRequestTimeoutException
+        emitter.onTimeout(() -> close(subscription));
+        emitter.onError(e -> remove(subscription));
+
+        // Added inside compute so a concurrent remove cannot drop the set this subscription goes into
+        Set<Subscription> mine = subscriptions.compute(userId, (id, set) -> {
+            Set<Subscription> target = set != null ? set : ConcurrentHashMap.newKeySet();
+            target.add(subscription);
+            return target;
+        });
+        // A user past the limit (typically tabs that never closed cleanly) loses their oldest stream
+        if (mine.size() > maxPerUser) {
+            mine.stream().min(Comparator.comparingLong(candidate -> candidate.openedAt))
+                    .filter(oldest -> oldest != subscription)
+                    .ifPresent(this::close);
+        }
+        enqueue(subscription, SseEmitter.event().comment("connected"));
+        return Optional.of(emitter);
+    }
+
+    /** Delivers event to every open stream of the given users after the current transaction commits. */
+    public void publish(ChangeEvent event, Long... userIds) {
+        AfterCommit.run(() -> {
+            String id = String.valueOf(sequence.incrementAndGet());
+            Stream.of(userIds).distinct().forEach(userId -> send(userId, id, event));
+        });
+    }
+
+    public boolean hasSubscribers() {
+        return connections.get() > 0;
+    }
+
+    // Keeps idle streams alive through proxies and finds the ones whose client has gone
+    @Scheduled(fixedDelayString = "${events.stream.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        subscriptions.values().forEach(set -> set.forEach(
+                subscription -> enqueue(subscription, SseEmitter.event().comment("keepalive"))));
+    }
+
+    private void send(Long userId, String id, ChangeEvent event) {
+        Set<Subscription> targets = subscriptions.get(userId);
+        if (targets == null) {
+            return;
+        }
+        for (Subscription subscription : targets) {
+            enqueue(subscription, SseEmitter.event()
+                    .id(id)
+                    .name(event.type().name())
+                    .data(event, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    private void enqueue(Subscription subscription, SseEmitter.SseEventBuilder event) {
+        if (subscription.removed.get()) {
+            return;
+        }
+        if (subscription.pendingCount.incrementAndGet() > maxPending) {
+            dropped.increment();
+            close(subscription);
+            return;
+        }
+        subscription.pending.add(event);
+        if (subscription.draining.compareAndSet(false, true)) {
+            taskExecutor.execute(() -> drain(subscription));
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        do {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscription.pending.poll()) != null) {
+                subscription.pendingCount.decrementAndGet();
+                try {
+                    subscription.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // Client gone or stream already completed
+                    remove(subscription);
+                    subscription.pending.clear();
+                    return;
+                }
+            }
+            subscription.draining.set(false);
+            // An event added after the last poll but before the flag cleared would otherwise wait
+        } while (!subscription.pending.isEmpty() && subscription.draining.compareAndSet(false, true));
+    }
+
+    private void close(Subscription subscription) {
+        remove(subscription);
+        subscription.emitter.complete();
+    }
+
+    private void remove(Subscription subscription) {
+        if (!subscription.removed.compareAndSet(false, true)) {
+            return;
+        }
+        connections.decrementAndGet();
+        subscriptions.computeIfPresent(subscription.userId, (id, set) -> {
+            set.remove(subscription);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static final class Subscription {
+        final Long userId;
+        final SseEmitter emitter;
+        final long openedAt = System.nanoTime();
+        final ConcurrentLinkedQueue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pendingCount = new AtomicInteger();
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean removed = new AtomicBoolean();
+
+        Subscription(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+    }
+}
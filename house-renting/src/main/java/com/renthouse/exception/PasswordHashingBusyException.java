@@ -0,0 +1,8 @@
+package com.renthouse.exception;
+
+/** Thrown when the password hashing pool is saturated; the client should retry shortly. */
+public class PasswordHashingBusyException extends RuntimeException {
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
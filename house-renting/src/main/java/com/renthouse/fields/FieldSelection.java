@@ -0,0 +1,77 @@
+package com.renthouse.fields;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The properties a caller asked for with fields=, e.g. "id,name,floors.rooms.monthlyRent". A dotted
+ * path keeps only those properties of the nested objects; a bare name keeps the whole value. No
+ * fields parameter (or a blank one) selects everything. Unknown names select nothing and are ignored.
+ *
+ * Services use includes to skip loading associations nobody asked for; SparseFieldsetAdvice uses
+ * apply to drop the unselected properties from the serialized response.
+ */
+public final class FieldSelection {
+
+    public static final FieldSelection ALL = new FieldSelection(null);
+
+    // null selects every property
+    private final Map<String, FieldSelection> children;
+
+    private FieldSelection(Map<String, FieldSelection> children) {
+        this.children = children;
+    }
+
+    public static FieldSelection parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        FieldSelection root = new FieldSelection(new LinkedHashMap<>());
+        for (String path : fields.split(",")) {
+            FieldSelection node = root;
+            String[] names = path.trim().split("\\.");
+            for (int i = 0; i < names.length && node != ALL; i++) {
+                String name = names[i].trim();
+                if (name.isEmpty()) {
+                    break;
+                }
+                if (i == names.length - 1) {
+                    node.children.put(name, ALL);
+                } else {
+                    node = node.children.computeIfAbsent(name, n -> new FieldSelection(new LinkedHashMap<>()));
+                }
+            }
+        }
+        return root.children.isEmpty() ? ALL : root;
+    }
+
+    public boolean isAll() {
+        return children == null;
+    }
+
+    /** Whether the property is selected, whole or in part. */
+    public boolean includes(String name) {
+        return children == null || children.containsKey(name);
+    }
+
+    /** Removes the unselected properties from an object, or from every object of an array, in place. */
+    public void apply(JsonNode node) {
+        if (children == null) {
+            return;
+        }
+        if (node.isArray()) {
+            node.forEach(this::apply);
+        } else if (node instanceof ObjectNode object) {
+            object.retain(children.keySet());
+            children.forEach((name, child) -> {
+                JsonNode value = object.get(name);
+                if (value != null) {
+                    child.apply(value);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.renthouse.fields;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.renthouse.dto.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Drops the properties not listed in the fields parameter from successful responses of
+ * @SparseFieldsets methods. The data is turned into a JSON tree, pruned and written in place of the
+ * DTOs; without a fields parameter the response is written as is.
+ */
+@RestControllerAdvice
+public class SparseFieldsetAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String FIELDS_PARAMETER = "fields";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(SparseFieldsets.class)
+                && AbstractJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(body instanceof ApiResponse<?> apiResponse) || !apiResponse.isSuccess() || apiResponse.getData() == null
+                || !(request instanceof ServletServerHttpRequest servletRequest)) {
+            return body;
+        }
+        FieldSelection fields = FieldSelection.parse(servletRequest.getServletRequest().getParameter(FIELDS_PARAMETER));
+        if (fields.isAll()) {
+            return body;
+        }
+        JsonNode data = objectMapper.valueToTree(apiResponse.getData());
+        String within = returnType.getMethodAnnotation(SparseFieldsets.class).within();
+        fields.apply(within.isEmpty() ? data : data.path(within));
+        return ApiResponse.success(apiResponse.getMessage(), data);
+    }
+}
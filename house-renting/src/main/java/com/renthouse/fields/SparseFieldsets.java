@@ -0,0 +1,18 @@
+package com.renthouse.fields;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller method whose ApiResponse data may be trimmed with the fields query parameter
+ * (see FieldSelection and SparseFieldsetAdvice).
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SparseFieldsets {
+
+    /** Property of the response data holding the DTOs, when they are wrapped (e.g. "items"). */
+    String within() default "";
+}
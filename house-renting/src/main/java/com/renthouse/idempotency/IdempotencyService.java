@@ -0,0 +1,202 @@
+package com.renthouse.idempotency;
+
+import com.renthouse.entity.IdempotencyRecord;
+import com.renthouse.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Remembers the response to each Idempotency-Key so a retried request is answered without running
+ * again. Finished responses are kept in memory (up to max-cached-responses) and in the
+ * idempotency_keys table, which also covers restarts and other instances. A duplicate that arrives
+ * while the first request is still running in this instance waits for its response instead of
+ * starting a second execution; one running on another instance gets IN_PROGRESS.
+ *
+ * Responses are kept for ttl-ms. A key whose request did not succeed (non-2xx or an exception) is released
+ * so the client can retry it.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public enum Outcome { EXECUTE, REPLAY, MISMATCH, IN_PROGRESS }
+
+    public record StoredResponse(byte[] requestHash, int status, String contentType, byte[] body,
+                                 long expiresAtMillis) {
+    }
+
+    public record Decision(Outcome outcome, StoredResponse response) {
+    }
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Value("${idempotency.ttl-ms:86400000}")
+    private long ttlMillis;
+
+    @Value("${idempotency.in-flight-timeout-ms:30000}")
+    private long inFlightTimeoutMillis;
+
+    @Value("${idempotency.max-cached-responses:10000}")
+    private int maxCachedResponses;
+
+    private final ConcurrentHashMap<String, StoredResponse> completed = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter coalesced;
+    private final Counter mismatched;
+    private final Counter inProgress;
+
+    public IdempotencyService(MeterRegistry meterRegistry) {
+        this.executed = outcomeCounter(meterRegistry, "executed");
+        this.replayed = outcomeCounter(meterRegistry, "replayed");
+        this.coalesced = outcomeCounter(meterRegistry, "coalesced");
+        this.mismatched = outcomeCounter(meterRegistry, "mismatch");
+        this.inProgress = outcomeCounter(meterRegistry, "in_progress");
+    }
+
+    /**
+     * Decides what to do with a request carrying key. EXECUTE means the caller now owns the key and
+     * must end with complete or release.
+     */
+    public Decision begin(String key, byte[] requestHash) {
+        while (true) {
+            StoredResponse cached = completed.get(key);
+            if (cached != null && cached.expiresAtMillis() > System.currentTimeMillis()) {
+                return replay(cached, requestHash, replayed);
+            }
+
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, mine);
+            if (running != null) {
+                StoredResponse result;
+                try {
+                    result = running.get(inFlightTimeoutMillis, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException | ExecutionException e) {
+                    return inProgress();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return inProgress();
+                }
+                if (result != null) {
+                    return replay(result, requestHash, coalesced);
+                }
+                // The running request was released; go again, this time possibly as the one executing
+                continue;
+            }
+
+            try {
+                return claim(key, requestHash, mine);
+            } catch (RuntimeException e) {
+                finish(key, mine, null);
+                throw e;
+            }
+        }
+    }
+
+    public void complete(String key, byte[] requestHash, int status, String contentType, byte[] body) {
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        StoredResponse response = new StoredResponse(requestHash, status, contentType, body, expiresAt);
+        try {
+            idempotencyRecordRepository.complete(key, status, contentType, body,
+                    LocalDateTime.now().plus(Duration.ofMillis(ttlMillis)));
+        } catch (RuntimeException e) {
+            // The in-flight row expires on its own; this instance still answers retries from memory
+            logger.warn("Could not store the response for idempotency key {}", key, e);
+        }
+        if (completed.size() < maxCachedResponses) {
+            completed.put(key, response);
+        }
+        finish(key, inFlight.get(key), response);
+        executed.increment();
+    }
+
+    public void release(String key) {
+        try {
+            idempotencyRecordRepository.release(key);
+        } catch (RuntimeException e) {
+            logger.warn("Could not release idempotency key {}", key, e);
+        } finally {
+            finish(key, inFlight.get(key), null);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        completed.values().removeIf(response -> response.expiresAtMillis() <= now);
+        int deleted = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.debug("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    private Decision claim(String key, byte[] requestHash, CompletableFuture<StoredResponse> mine) {
+        LocalDateTime now = LocalDateTime.now();
+        if (idempotencyRecordRepository.claim(key, requestHash, now.plus(Duration.ofMillis(inFlightTimeoutMillis)), now) == 1) {
+            return new Decision(Outcome.EXECUTE, null);
+        }
+
+        IdempotencyRecord record = idempotencyRecordRepository.findCurrent(key).orElse(null);
+        if (record == null || record.getStatusCode() == null) {
+            // Running on another instance (or released in between); the client retries later
+            finish(key, mine, null);
+            return inProgress();
+        }
+        long expiresAt = record.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        StoredResponse stored = new StoredResponse(record.getRequestHash(), record.getStatusCode(),
+                record.getContentType(), record.getResponseBody(), expiresAt);
+        if (completed.size() < maxCachedResponses) {
+            completed.put(key, stored);
+        }
+        finish(key, mine, stored);
+        return replay(stored, requestHash, replayed);
+    }
+
+    private Decision replay(StoredResponse stored, byte[] requestHash, Counter counter) {
+        if (!Arrays.equals(stored.requestHash(), requestHash)) {
+            mismatched.increment();
+            return new Decision(Outcome.MISMATCH, null);
+        }
+        counter.increment();
+        return new Decision(Outcome.REPLAY, stored);
+    }
+
+    private Decision inProgress() {
+        inProgress.increment();
+        return new Decision(Outcome.IN_PROGRESS, null);
+    }
+
+    private void finish(String key, CompletableFuture<StoredResponse> future, StoredResponse response) {
+        if (future != null) {
+            inFlight.remove(key, future);
+            future.complete(response);
+        }
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("idempotency.requests")
+                .description("Requests carrying an Idempotency-Key, by how they were answered")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
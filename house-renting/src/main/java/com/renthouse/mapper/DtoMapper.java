@@ -0,0 +1,155 @@
+package com.renthouse.mapper;
+
+import com.renthouse.dto.FloorDto;
+import com.renthouse.dto.PaymentDto;
+import com.renthouse.dto.RenthouseDto;
+import com.renthouse.dto.RoomDto;
+import com.renthouse.entity.Floor;
+import com.renthouse.entity.Payment;
+import com.renthouse.entity.Renthouse;
+import com.renthouse.entity.Room;
+import org.mapstruct.Context;
+import org.mapstruct.InheritConfiguration;
+import org.mapstruct.IterableMapping;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Named;
+import org.mapstruct.ReportingPolicy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Entity to DTO conversion for the owner and tenant APIs. The implementation is generated at compile
+ * time (plain getters and setters, no reflection), and every target property is mapped or ignored
+ * explicitly so a new DTO field fails the build instead of silently staying null.
+ *
+ * Each profile lists the associations it reads; the repository method feeding it should fetch
+ * exactly those (see the entity graphs in RoomRepository, RenthouseRepository and PaymentRepository).
+ */
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.ERROR,
+        imports = {Room.class, ArrayList.class})
+public interface DtoMapper {
+
+    /** Owner view of a room with the renter's contact details. Reads floor, floor.renthouse and renter. */
+    @Named("ownerRoom")
+    @Mapping(target = "floorId", source = "floor.id")
+    @Mapping(target = "floorNumber", source = "floor.floorNumber")
+    @Mapping(target = "renthouseId", source = "floor.renthouse.id")
+    @Mapping(target = "renthouseName", source = "floor.renthouse.name")
+    @Mapping(target = "renthouseAddress", ignore = true)
+    @Mapping(target = "renterId", source = "renter.id")
+    @Mapping(target = "renterName", source = "renter.fullName")
+    @Mapping(target = "renterFullName", source = "renter.fullName")
+    @Mapping(target = "renterUsername", source = "renter.username")
+    @Mapping(target = "renterEmail", source = "renter.email")
+    @Mapping(target = "renterPhone", source = "renter.phoneNumber")
+    @Mapping(target = "moveInDate", expression = "java(room.getRenter() != null ? room.getBookedAt() : null)")
+    @Mapping(target = "isOccupied", expression = "java(room.getStatus() != Room.RoomStatus.AVAILABLE)")
+    @Mapping(target = "isFavorite", ignore = true)
+    RoomDto toOwnerRoomDto(Room room);
+
+    /** Owner room page: the owner view plus the renthouse address. Same associations as ownerRoom. */
+    @Named("roomDetails")
+    @InheritConfiguration(name = "toOwnerRoomDto")
+    @Mapping(target = "renthouseAddress", source = "floor.renthouse.address")
+    RoomDto toRoomDetailsDto(Room room);
+
+    /**
+     * Tenant view: renter name only, favorite flag from the caller's favorite room ids (loaded once per
+     * request, not per room). Reads floor, floor.renthouse and renter.
+     */
+    @Named("tenantRoom")
+    @Mapping(target = "floorId", source = "floor.id")
+    @Mapping(target = "floorNumber", source = "floor.floorNumber")
+    @Mapping(target = "renthouseId", source = "floor.renthouse.id")
+    @Mapping(target = "renthouseName", source = "floor.renthouse.name")
+    @Mapping(target = "renthouseAddress", ignore = true)
+    @Mapping(target = "renterId", source = "renter.id")
+    @Mapping(target = "renterName", source = "renter.fullName")
+    @Mapping(target = "renterFullName", source = "renter.fullName")
+    @Mapping(target = "renterUsername", ignore = true)
+    @Mapping(target = "renterEmail", ignore = true)
+    @Mapping(target = "renterPhone", ignore = true)
+    @Mapping(target = "moveInDate", ignore = true)
+    @Mapping(target = "isOccupied", expression = "java(room.getStatus() != Room.RoomStatus.AVAILABLE)")
+    @Mapping(target = "isFavorite", expression = "java(favoriteRoomIds.contains(room.getId()))")
+    RoomDto toTenantRoomDto(Room room, @Context Set<Long> favoriteRoomIds);
+
+    @Named("ownerRooms")
+    @IterableMapping(qualifiedByName = "ownerRoom")
+    List<RoomDto> toOwnerRoomDtos(List<Room> rooms);
+
+    @Named("tenantRooms")
+    @IterableMapping(qualifiedByName = "tenantRoom")
+    List<RoomDto> toTenantRoomDtos(List<Room> rooms, @Context Set<Long> favoriteRoomIds);
+
+    /** Floor without its rooms. Reads renthouse. */
+    @Named("floor")
+    @Mapping(target = "renthouseId", source = "renthouse.id")
+    @Mapping(target = "renthouseName", source = "renthouse.name")
+    @Mapping(target = "rooms", ignore = true)
+    FloorDto toFloorDto(Floor floor);
+
+    @Named("ownerFloor")
+    @InheritConfiguration(name = "toFloorDto")
+    @Mapping(target = "rooms", qualifiedByName = "ownerRooms")
+    FloorDto toOwnerFloorDto(Floor floor);
+
+    @Named("tenantFloor")
+    @InheritConfiguration(name = "toFloorDto")
+    @Mapping(target = "rooms", qualifiedByName = "tenantRooms")
+    FloorDto toTenantFloorDto(Floor floor, @Context Set<Long> favoriteRoomIds);
+
+    @Named("ownerFloors")
+    @IterableMapping(qualifiedByName = "ownerFloor")
+    List<FloorDto> toOwnerFloorDtos(List<Floor> floors);
+
+    @Named("tenantFloors")
+    @IterableMapping(qualifiedByName = "tenantFloor")
+    List<FloorDto> toTenantFloorDtos(List<Floor> floors, @Context Set<Long> favoriteRoomIds);
+
+    /**
+     * Renthouse with its floor and room tree, owner view. Reads owner, floors, floors.rooms and
+     * rooms.renter; the collections rely on hibernate.default_batch_fetch_size.
+     */
+    @Named("ownerRenthouse")
+    @Mapping(target = "ownerId", source = "owner.id")
+    @Mapping(target = "ownerName", source = "owner.fullName")
+    @Mapping(target = "floors", qualifiedByName = "ownerFloors")
+    @Mapping(target = "amenities", expression = "java(new ArrayList<>())")
+    RenthouseDto toOwnerRenthouseDto(Renthouse renthouse);
+
+    /** Tenant view of the same tree; reads the same associations as ownerRenthouse. */
+    @Named("tenantRenthouse")
+    @Mapping(target = "ownerId", source = "owner.id")
+    @Mapping(target = "ownerName", source = "owner.fullName")
+    @Mapping(target = "floors", qualifiedByName = "tenantFloors")
+    @Mapping(target = "amenities", expression = "java(new ArrayList<>())")
+    RenthouseDto toTenantRenthouseDto(Renthouse renthouse, @Context Set<Long> favoriteRoomIds);
+
+    /** Renthouse without its floors, for list calls that did not select them. Reads owner only. */
+    @Named("renthouseSummary")
+    @Mapping(target = "ownerId", source = "owner.id")
+    @Mapping(target = "ownerName", source = "owner.fullName")
+    @Mapping(target = "floors", ignore = true)
+    @Mapping(target = "amenities", expression = "java(new ArrayList<>())")
+    RenthouseDto toRenthouseSummaryDto(Renthouse renthouse);
+
+    @IterableMapping(qualifiedByName = "renthouseSummary")
+    List<RenthouseDto> toRenthouseSummaryDtos(List<Renthouse> renthouses);
+
+    @IterableMapping(qualifiedByName = "ownerRenthouse")
+    List<RenthouseDto> toOwnerRenthouseDtos(List<Renthouse> renthouses);
+
+    @IterableMapping(qualifiedByName = "tenantRenthouse")
+    List<RenthouseDto> toTenantRenthouseDtos(List<Renthouse> renthouses, @Context Set<Long> favoriteRoomIds);
+
+    /** Reads room and user. */
+    @Mapping(target = "roomId", source = "room.id")
+    @Mapping(target = "roomNumber", source = "room.roomNumber")
+    @Mapping(target = "userId", source = "user.id")
+    @Mapping(target = "userName", source = "user.fullName")
+    PaymentDto toPaymentDto(Payment payment);
+}
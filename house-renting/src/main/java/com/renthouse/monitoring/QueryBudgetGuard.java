@@ -0,0 +1,91 @@
+package com.renthouse.monitoring;
+
+import com.renthouse.exception.QueryBudgetExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Development-time N+1 detector. Every statement is checked against the per-request budget
+ * before it runs; a statement shape repeated repeat-threshold times is reported together with
+ * the service method that issued it. In FAIL mode an over-budget request is aborted.
+ *
+ * Off by default; the dev profile and the tests turn it on. When off the bean is not created, so
+ * statements pay nothing for it.
+ */
+@Component
+@ConditionalOnExpression("!'${query-budget.mode:OFF}'.equalsIgnoreCase('OFF')")
+public class QueryBudgetGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryBudgetGuard.class);
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    public enum Mode {
+        OFF, WARN, FAIL
+    }
+
+    @Value("${query-budget.mode:OFF}")
+    private Mode mode;
+
+    @Value("${query-budget.max-statements:30}")
+    private int maxStatements;
+
+    @Value("${query-budget.repeat-threshold:5}")
+    private int repeatThreshold;
+
+    public void beforeStatement(String sql) {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (mode == Mode.OFF || stats == null) {
+            return;
+        }
+
+        int repeats = stats.recordShape(sql);
+        if (repeats == repeatThreshold) {
+            logger.warn("Possible N+1 in {}: statement repeated {} times from {}: {}",
+                    stats.getDescription(), repeats, findCallingServiceMethod(), RequestSqlStats.normalize(sql));
+        }
+
+        // statementCount is updated after execution, so this statement is number count + 1
+        int executed = stats.getStatementCount() + 1;
+        if (executed > maxStatements) {
+            if (mode == Mode.FAIL) {
+                throw new QueryBudgetExceededException("Query budget of " + maxStatements
+                        + " statements exceeded by " + stats.getDescription() + " in " + findCallingServiceMethod());
+            }
+            if (!stats.markBudgetReported()) {
+                logger.warn("Query budget of {} statements exceeded by {} in {}",
+                        maxStatements, stats.getDescription(), findCallingServiceMethod());
+            }
+        }
+    }
+
+    public void afterRequest(RequestSqlStats stats) {
+        if (mode == Mode.OFF || stats.getStatementCount() <= maxStatements) {
+            return;
+        }
+        String repeated = stats.getShapeCounts().entrySet().stream()
+                .filter(entry -> entry.getValue() >= repeatThreshold)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .map(entry -> entry.getValue() + "x " + entry.getKey())
+                .collect(Collectors.joining("\n\t"));
+        logger.warn("{} executed {} statements ({}ms) against a budget of {}{}",
+                stats.getDescription(), stats.getStatementCount(), stats.getElapsedMillis(), maxStatements,
+                repeated.isEmpty() ? "" : "; repeated shapes:\n\t" + repeated);
+    }
+
+    private String findCallingServiceMethod() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith("com.renthouse.service.")
+                        && !frame.getClassName().contains("$$"))
+                .findFirst()
+                .map(frame -> frame.getClassName().substring("com.renthouse.service.".length())
+                        + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+                .orElse("unknown caller"));
+    }
+}
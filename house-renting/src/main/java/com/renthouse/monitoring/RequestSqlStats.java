@@ -0,0 +1,141 @@
+package com.renthouse.monitoring;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-thread SQL tally for the request currently being served. Populated by the JDBC proxy
+ * installed in MetricsConfig and read back by SqlMetricsFilter once the response is written.
+ *
+ * Work the request hands to applicationTaskExecutor (the dashboard fan-out) carries the tally along
+ * through propagate, so several threads may update it at once; its methods lock the instance.
+ */
+public final class RequestSqlStats {
+
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+    private final String description;
+    private final Map<String, Integer> shapeCounts = new HashMap<>();
+    private int statementCount;
+    private long elapsedMillis;
+    private int openConnections;
+    private long connectionHeldSince;
+    private long connectionHeldNanos;
+    private boolean budgetReported;
+
+    private RequestSqlStats(String description) {
+        this.description = description;
+    }
+
+    public static RequestSqlStats begin(String description) {
+        RequestSqlStats stats = new RequestSqlStats(description);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public static RequestSqlStats current() {
+        return CURRENT.get();
+    }
+
+    /** Wraps a task so it runs with the submitting request's stats current (used as a TaskDecorator). */
+    public static Runnable propagate(Runnable task) {
+        RequestSqlStats stats = CURRENT.get();
+        if (stats == null) {
+            return task;
+        }
+        return () -> {
+            RequestSqlStats previous = CURRENT.get();
+            CURRENT.set(stats);
+            try {
+                task.run();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+
+    public static void record(int statements, long elapsedMillis) {
+        RequestSqlStats stats = CURRENT.get();
+        if (stats != null) {
+            synchronized (stats) {
+                stats.statementCount += statements;
+                stats.elapsedMillis += elapsedMillis;
+            }
+        }
+    }
+
+    // Connections may nest (REQUIRES_NEW) or overlap (fan-out), so only the time with at least one open counts
+    public static void connectionAcquired() {
+        RequestSqlStats stats = CURRENT.get();
+        if (stats != null) {
+            synchronized (stats) {
+                if (stats.openConnections++ == 0) {
+                    stats.connectionHeldSince = System.nanoTime();
+                }
+            }
+        }
+    }
+
+    public static void connectionReleased() {
+        RequestSqlStats stats = CURRENT.get();
+        if (stats != null) {
+            synchronized (stats) {
+                if (stats.openConnections > 0 && --stats.openConnections == 0) {
+                    stats.connectionHeldNanos += System.nanoTime() - stats.connectionHeldSince;
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts one more execution of the statement's shape (bind values and IN-list lengths
+     * ignored) and returns how often that shape has run in this request so far.
+     */
+    public synchronized int recordShape(String sql) {
+        return shapeCounts.merge(normalize(sql), 1, Integer::sum);
+    }
+
+    public synchronized Map<String, Integer> getShapeCounts() {
+        return new HashMap<>(shapeCounts);
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public synchronized int getStatementCount() {
+        return statementCount;
+    }
+
+    public synchronized long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /** Time this request held at least one connection, including one still open now. */
+    public synchronized long getConnectionHeldNanos() {
+        return openConnections > 0
+                ? connectionHeldNanos + System.nanoTime() - connectionHeldSince
+                : connectionHeldNanos;
+    }
+
+    /** Marks the budget as reported and returns whether it already was. */
+    public synchronized boolean markBudgetReported() {
+        boolean reported = budgetReported;
+        budgetReported = true;
+        return reported;
+    }
+
+    static String normalize(String sql) {
+        return sql.replaceAll("\\s+", " ")
+                .replaceAll("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)", "(?)")
+                .trim();
+    }
+}
@@ -1,11 +1,16 @@
 package com.renthouse.repository;
 
+import com.renthouse.dto.RoomSummary;
 import com.renthouse.entity.Favorite;
+import com.renthouse.search.PopularityRow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
@@ -13,4 +18,19 @@ public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
     Optional<Favorite> findByUser_IdAndRoom_Id(Long userId, Long roomId);
     Boolean existsByUser_IdAndRoom_Id(Long userId, Long roomId);
     void deleteByUser_IdAndRoom_Id(Long userId, Long roomId);
-}
\ No newline at end of file
+    boolean existsByUser_IdAndRoom_Floor_Renthouse_Id(Long userId, Long renthouseId);
+
+    // One query per request instead of an exists check per listed room
+    @Query("SELECT f.room.id FROM Favorite f WHERE f.user.id = :userId")
+    Set<Long> findRoomIdsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT new com.renthouse.dto.RoomSummary(r.id, r.roomNumber, r.description, r.monthlyRent, r.deposit, " +
+           "r.status, r.bookedAt, r.createdAt, r.updatedAt, f.id, f.floorNumber, h.id, h.name, u.id, u.fullName, true) " +
+           "FROM Favorite fav JOIN fav.room r JOIN r.floor f JOIN f.renthouse h LEFT JOIN r.renter u " +
+           "WHERE fav.user.id = :userId")
+    List<RoomSummary> findFavoriteRoomSummaries(@Param("userId") Long userId);
+
+    @Query("SELECT new com.renthouse.search.PopularityRow(f.room.floor.renthouse.id, COUNT(f)) " +
+           "FROM Favorite f GROUP BY f.room.floor.renthouse.id")
+    List<PopularityRow> countByRenthouse();
+}
@@ -2,9 +2,11 @@ package com.renthouse.repository;
 
 import com.renthouse.entity.Floor;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -12,7 +14,21 @@ import java.util.List;
 public interface FloorRepository extends JpaRepository<Floor, Long> {
     List<Floor> findByRenthouse_Id(Long renthouseId);
     List<Floor> findByRenthouse_IdOrderByFloorNumberAsc(Long renthouseId);
-    
-    @Query("SELECT MAX(f.floorNumber) FROM Floor f WHERE f.renthouse.id = :renthouseId")
-    Integer findMaxFloorNumberByRenthouseId(@Param("renthouseId") Long renthouseId);
+
+    // Same counter-row scheme as RenthouseRepository.allocateFloorNumber; only all-digit room numbers
+    // take part in the sequence, so names like "A1" never break the seed.
+    @Transactional
+    @Query(value = "UPDATE floors SET room_sequence = COALESCE(room_sequence, " +
+           "(SELECT COALESCE(MAX(CAST(r.room_number AS INTEGER)), 0) FROM rooms r " +
+           "WHERE r.floor_id = :floorId AND r.room_number ~ '^[0-9]{1,9}$')) + 1 " +
+           "WHERE id = :floorId RETURNING room_sequence", nativeQuery = true)
+    Integer allocateRoomNumber(@Param("floorId") Long floorId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE floors SET room_sequence = GREATEST(COALESCE(room_sequence, " +
+           "(SELECT COALESCE(MAX(CAST(r.room_number AS INTEGER)), 0) FROM rooms r " +
+           "WHERE r.floor_id = :floorId AND r.room_number ~ '^[0-9]{1,9}$')), :roomNumber) " +
+           "WHERE id = :floorId", nativeQuery = true)
+    void reserveRoomNumber(@Param("floorId") Long floorId, @Param("roomNumber") int roomNumber);
 }
\ No newline at end of file
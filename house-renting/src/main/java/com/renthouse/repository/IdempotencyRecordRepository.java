@@ -0,0 +1,51 @@
+package com.renthouse.repository;
+
+import com.renthouse.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Takes the key for a new execution; an expired row (finished or abandoned) is taken over.
+    // Returns 0 when someone else holds the key.
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, request_hash, expires_at) " +
+           "VALUES (:key, :requestHash, :expiresAt) " +
+           "ON CONFLICT (idempotency_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, " +
+           "status_code = NULL, content_type = NULL, response_body = NULL, expires_at = EXCLUDED.expires_at " +
+           "WHERE idempotency_keys.expires_at < :now", nativeQuery = true)
+    int claim(@Param("key") String key, @Param("requestHash") byte[] requestHash,
+              @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE idempotency_keys SET status_code = :statusCode, content_type = :contentType, " +
+           "response_body = :responseBody, expires_at = :expiresAt WHERE idempotency_key = :key", nativeQuery = true)
+    int complete(@Param("key") String key, @Param("statusCode") int statusCode,
+                 @Param("contentType") String contentType, @Param("responseBody") byte[] responseBody,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE idempotency_key = :key", nativeQuery = true)
+    int release(@Param("key") String key);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE expires_at < :now", nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    // Read on the primary: the row was just found claimed there, the replica may not have it yet
+    @Transactional
+    @Query("SELECT r FROM IdempotencyRecord r WHERE r.key = :key")
+    Optional<IdempotencyRecord> findCurrent(@Param("key") String key);
+}
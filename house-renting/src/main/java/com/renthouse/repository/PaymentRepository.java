@@ -1,20 +1,33 @@
 package com.renthouse.repository;
 
+import com.renthouse.dto.PaymentSummary;
 import com.renthouse.entity.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
+
+    // List endpoints read rows straight into PaymentSummary records, without managed entities
+    String PAYMENT_SUMMARY = "SELECT new com.renthouse.dto.PaymentSummary(p.id, p.type, p.paymentMonth, p.roomFee, " +
+           "p.electricityFee, p.waterFee, p.otherCharges, p.otherChargesDescription, p.totalAmount, p.status, " +
+           "p.qrCodeData, p.paidAt, p.createdAt, p.updatedAt, rm.id, rm.roomNumber, u.id, u.fullName) " +
+           "FROM Payment p LEFT JOIN p.room rm LEFT JOIN p.user u ";
+
     List<Payment> findByUser_Id(Long userId);
     List<Payment> findByRoom_Id(Long roomId);
     List<Payment> findByRoom_IdOrderByPaymentMonthDesc(Long roomId);
+    List<Payment> findByRoom_IdInOrderByPaymentMonthDesc(Collection<Long> roomIds);
     List<Payment> findByPaymentMonth(LocalDate paymentMonth);
     
     // Get payments by status for a user using Spring Data JPA method names
@@ -23,6 +36,23 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     
     // Get pending payments specifically (PENDING and OVERDUE, excluding CANCELLED and PAID)
     List<Payment> findByUser_IdAndStatusInOrderByPaymentMonthAsc(Long userId, List<Payment.PaymentStatus> statuses);
+
+    @Query(PAYMENT_SUMMARY + "WHERE p.user.id = :userId")
+    List<PaymentSummary> findSummariesByUserId(@Param("userId") Long userId);
+
+    @Query(PAYMENT_SUMMARY + "WHERE p.user.id = :userId AND p.status = :status ORDER BY p.paymentMonth DESC")
+    List<PaymentSummary> findSummariesByUserIdAndStatus(@Param("userId") Long userId,
+                                                        @Param("status") Payment.PaymentStatus status);
+
+    @Query(PAYMENT_SUMMARY + "WHERE p.user.id = :userId AND p.status IN :statuses ORDER BY p.paymentMonth ASC")
+    List<PaymentSummary> findSummariesByUserIdAndStatusIn(@Param("userId") Long userId,
+                                                          @Param("statuses") List<Payment.PaymentStatus> statuses);
+
+    @Query(PAYMENT_SUMMARY + "WHERE p.room.id = :roomId ORDER BY p.paymentMonth DESC")
+    List<PaymentSummary> findSummariesByRoomId(@Param("roomId") Long roomId);
+
+    @Query(PAYMENT_SUMMARY + "WHERE rm.floor.renthouse.owner.id = :ownerId")
+    List<PaymentSummary> findSummariesByOwnerId(@Param("ownerId") Long ownerId);
     
     @Query("SELECT p FROM Payment p WHERE p.room.floor.renthouse.owner.id = :ownerId")
     List<Payment> findByOwnerId(@Param("ownerId") Long ownerId);
@@ -43,9 +73,55 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     BigDecimal getYearlyIncomeByOwner(@Param("ownerId") Long ownerId, 
                                     @Param("year") int year);
 
+    @Query("SELECT MONTH(p.paymentMonth), SUM(p.totalAmount) FROM Payment p WHERE " +
+           "p.room.floor.renthouse.owner.id = :ownerId AND " +
+           "p.status = 'PAID' AND " +
+           "YEAR(p.paymentMonth) = :year " +
+           "GROUP BY MONTH(p.paymentMonth)")
+    List<Object[]> getMonthlyIncomeSeriesByOwner(@Param("ownerId") Long ownerId, 
+                                                 @Param("year") int year);
+
     @Query("SELECT p FROM Payment p WHERE p.room.floor.renthouse.owner.id = :ownerId AND p.paymentMonth = :month")
     List<Payment> findByOwnerAndMonth(@Param("ownerId") Long ownerId, @Param("month") LocalDate month);
     
     @Query("SELECT COUNT(p) FROM Payment p WHERE p.room.floor.renthouse.owner.id = :ownerId AND p.status != :status")
     long countByOwnerIdAndStatusNot(@Param("ownerId") Long ownerId, @Param("status") Payment.PaymentStatus status);
+
+    // Bulk mark-as-paid (OwnerService.markPaymentsPaid). The owner check is part of the UPDATE, so the
+    // happy path is one statement; each updated row comes back as {id, user_id, room_id}.
+    String MARK_PAID = "UPDATE payments p SET status = 'PAID', paid_at = :now, updated_at = :now " +
+           "FROM rooms rm JOIN floors f ON f.id = rm.floor_id JOIN renthouses h ON h.id = f.renthouse_id " +
+           "WHERE rm.id = p.room_id AND h.owner_id = :ownerId AND p.status <> 'PAID' ";
+
+    @Transactional
+    @Query(value = MARK_PAID + "AND p.id IN (:paymentIds) RETURNING p.id, p.user_id, p.room_id", nativeQuery = true)
+    List<Object[]> markPaidByIds(@Param("ownerId") Long ownerId,
+                                 @Param("paymentIds") Collection<Long> paymentIds,
+                                 @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Query(value = MARK_PAID + "AND p.payment_month = :paymentMonth AND p.status IN (:statuses) " +
+           "AND (CAST(:renthouseId AS bigint) IS NULL OR h.id = :renthouseId) " +
+           "RETURNING p.id, p.user_id, p.room_id", nativeQuery = true)
+    List<Object[]> markPaidByMonth(@Param("ownerId") Long ownerId,
+                                   @Param("paymentMonth") LocalDate paymentMonth,
+                                   @Param("renthouseId") Long renthouseId,
+                                   @Param("statuses") Collection<String> statuses,
+                                   @Param("now") LocalDateTime now);
+
+    // Explains the ids markPaidByIds did not update: {id, owner_id}
+    @Query("SELECT p.id, h.owner.id FROM Payment p JOIN p.room rm JOIN rm.floor f JOIN f.renthouse h " +
+           "WHERE p.id IN :paymentIds")
+    List<Object[]> findOwnerIdsByPaymentIds(@Param("paymentIds") Collection<Long> paymentIds);
+
+    // Flags one bounded chunk of stale PENDING payments as OVERDUE; SKIP LOCKED keeps the sweep from
+    // waiting on rows an owner is marking PAID at the same moment
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE payments SET status = 'OVERDUE', updated_at = :now WHERE id IN (" +
+           "SELECT id FROM payments WHERE status = 'PENDING' AND created_at < :cutoff " +
+           "ORDER BY id LIMIT :batchSize FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int markOverdueBatch(@Param("cutoff") LocalDateTime cutoff,
+                         @Param("now") LocalDateTime now,
+                         @Param("batchSize") int batchSize);
 }
@@ -1,31 +1,77 @@
 package com.renthouse.repository;
 
 import com.renthouse.entity.Renthouse;
+import com.renthouse.search.ListingRow;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface RenthouseRepository extends JpaRepository<Renthouse, Long> {
+    // Floors and rooms under each renthouse are batch-loaded (hibernate.default_batch_fetch_size);
+    // fetch-joining them as well would multiply rows and break paging
+    @EntityGraph(attributePaths = "owner")
     List<Renthouse> findByOwner_Id(Long ownerId);
-    
+
+    @EntityGraph(attributePaths = "owner")
+    Optional<Renthouse> findDetailedById(Long id);
+
+    @EntityGraph(attributePaths = "owner")
+    List<Renthouse> findDetailedByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = "owner")
     @Query("SELECT r FROM Renthouse r")
     List<Renthouse> findAllRenthouses();
 
-    @Query("SELECT r FROM Renthouse r WHERE " +
-           "(:name IS NULL OR LOWER(r.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
-           "(:location IS NULL OR LOWER(r.address) LIKE LOWER(CONCAT('%', :location, '%'))) AND " +
-           "(:minPrice IS NULL OR r.baseRent >= :minPrice) AND " +
-           "(:maxPrice IS NULL OR r.baseRent <= :maxPrice)")
-    List<Renthouse> searchRenthouses(@Param("name") String name, 
-                                   @Param("location") String location,
-                                   @Param("minPrice") BigDecimal minPrice, 
-                                   @Param("maxPrice") BigDecimal maxPrice);
+    // Each text filter matches the weighted search_vector (see SearchQueryParser) or, for misspellings,
+    // the trigram word similarity of its words; both are GIN-indexed (search-migration.sql). Excluded words
+    // apply to trigram matches as well. The room filters read the stats columns kept by RoomStatsService
+    // and only count available rooms: minRoomRent keeps renthouses with an available room at or above
+    // it, maxRoomRent those with one at or below it. sort is a RenthouseSort name; ties, and RELEVANCE,
+    // go by text relevance.
+    @Query(value = "SELECT r.* FROM renthouses r " +
+           "CROSS JOIN (SELECT to_tsquery('simple', CAST(:nameQuery AS text)) AS name_query, " +
+           "to_tsquery('simple', CAST(:nameExclusions AS text)) AS name_exclusions, " +
+           "to_tsquery('simple', CAST(:locationQuery AS text)) AS location_query, " +
+           "to_tsquery('simple', CAST(:locationExclusions AS text)) AS location_exclusions) q WHERE " +
+           "(q.name_query IS NULL OR r.search_vector @@ q.name_query OR " +
+           "(CAST(:nameText AS text) <% r.name AND (q.name_exclusions IS NULL OR r.search_vector @@ q.name_exclusions))) AND " +
+           "(q.location_query IS NULL OR r.search_vector @@ q.location_query OR " +
+           "(CAST(:locationText AS text) <% r.address AND (q.location_exclusions IS NULL OR r.search_vector @@ q.location_exclusions))) AND " +
+           "(CAST(:minPrice AS numeric) IS NULL OR r.base_rent >= :minPrice) AND " +
+           "(CAST(:maxPrice AS numeric) IS NULL OR r.base_rent <= :maxPrice) AND " +
+           "(CAST(:availableOnly AS boolean) IS NOT TRUE OR r.available_rooms > 0) AND " +
+           "(CAST(:minRoomRent AS numeric) IS NULL OR r.max_available_rent >= :minRoomRent) AND " +
+           "(CAST(:maxRoomRent AS numeric) IS NULL OR r.min_available_rent <= :maxRoomRent) " +
+           "ORDER BY CASE WHEN :sort = 'RENT_ASC' THEN r.min_available_rent END ASC NULLS LAST, " +
+           "CASE WHEN :sort = 'RENT_DESC' THEN r.min_available_rent END DESC NULLS LAST, " +
+           "CASE WHEN :sort = 'AVAILABILITY' THEN r.available_rooms END DESC NULLS LAST, " +
+           "COALESCE(ts_rank(r.search_vector, q.name_query), 0) + " +
+           "COALESCE(ts_rank(r.search_vector, q.location_query), 0) + " +
+           "COALESCE(word_similarity(CAST(:nameText AS text), r.name), 0) + " +
+           "COALESCE(word_similarity(CAST(:locationText AS text), r.address), 0) DESC, r.id", nativeQuery = true)
+    List<Renthouse> searchRenthouses(@Param("nameQuery") String nameQuery,
+                                     @Param("nameText") String nameText,
+                                     @Param("nameExclusions") String nameExclusions,
+                                     @Param("locationQuery") String locationQuery,
+                                     @Param("locationText") String locationText,
+                                     @Param("locationExclusions") String locationExclusions,
+                                     @Param("minPrice") BigDecimal minPrice,
+                                     @Param("maxPrice") BigDecimal maxPrice,
+                                     @Param("availableOnly") Boolean availableOnly,
+                                     @Param("minRoomRent") BigDecimal minRoomRent,
+                                     @Param("maxRoomRent") BigDecimal maxRoomRent,
+                                     @Param("sort") String sort);
 
     @Query(value = "SELECT * FROM renthouses WHERE " +
            "(6371 * acos(cos(radians(:latitude)) * cos(radians(latitude)) * " +
@@ -39,8 +85,63 @@ public interface RenthouseRepository extends JpaRepository<Renthouse, Long> {
                                         @Param("longitude") Double longitude, 
                                         @Param("radiusKm") Double radiusKm);
 
+    @EntityGraph(attributePaths = "owner")
     @Query("SELECT r FROM Renthouse r ORDER BY r.createdAt DESC")
     List<Renthouse> findFeaturedRenthouses(Pageable pageable);
     
     long countByOwner_Id(Long ownerId);
-}
\ No newline at end of file
+
+    @Query("SELECT new com.renthouse.search.ListingRow(r.id, r.name, r.address, r.description, r.baseRent) " +
+           "FROM Renthouse r")
+    List<ListingRow> findListingRows();
+
+    // Floor numbers come from a per-renthouse counter row. The UPDATE takes the row lock, so concurrent
+    // creates serialize on it instead of racing on MAX()+1. A NULL counter (new rows, or rows created
+    // before the counter existed) is seeded from the current floors once, on first use.
+    @Transactional
+    @Query(value = "UPDATE renthouses SET floor_sequence = COALESCE(floor_sequence, " +
+           "(SELECT COALESCE(MAX(f.floor_number), 0) FROM floors f WHERE f.renthouse_id = :renthouseId)) + 1 " +
+           "WHERE id = :renthouseId RETURNING floor_sequence", nativeQuery = true)
+    Integer allocateFloorNumber(@Param("renthouseId") Long renthouseId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE renthouses SET floor_sequence = GREATEST(COALESCE(floor_sequence, " +
+           "(SELECT COALESCE(MAX(f.floor_number), 0) FROM floors f WHERE f.renthouse_id = :renthouseId)), :floorNumber) " +
+           "WHERE id = :renthouseId", nativeQuery = true)
+    void reserveFloorNumber(@Param("renthouseId") Long renthouseId, @Param("floorNumber") int floorNumber);
+
+    // Room stats columns (see Renthouse.totalRooms), aggregated per renthouse
+    String ROOM_STATS_COLUMNS = "COUNT(rm.id) AS total_rooms, " +
+           "COUNT(rm.id) FILTER (WHERE rm.status = 'AVAILABLE') AS available_rooms, " +
+           "MIN(rm.monthly_rent) FILTER (WHERE rm.status = 'AVAILABLE') AS min_available_rent, " +
+           "MAX(rm.monthly_rent) FILTER (WHERE rm.status = 'AVAILABLE') AS max_available_rent";
+
+    String SET_ROOM_STATS = "SET total_rooms = s.total_rooms, available_rooms = s.available_rooms, " +
+           "min_available_rent = s.min_available_rent, max_available_rent = s.max_available_rent ";
+
+    // Locks the room's renthouse row so that concurrent room writes refresh its stats one at a time;
+    // each refresh then reads the rooms as committed by the one before it
+    @Query(value = "SELECT r.id FROM renthouses r JOIN floors f ON f.renthouse_id = r.id " +
+           "JOIN rooms rm ON rm.floor_id = f.id WHERE rm.id = :roomId FOR UPDATE OF r", nativeQuery = true)
+    Long lockRenthouseOfRoom(@Param("roomId") Long roomId);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE renthouses r " + SET_ROOM_STATS +
+           "FROM (SELECT " + ROOM_STATS_COLUMNS + " FROM floors f JOIN rooms rm ON rm.floor_id = f.id " +
+           "WHERE f.renthouse_id = :renthouseId) s WHERE r.id = :renthouseId", nativeQuery = true)
+    void refreshRoomStats(@Param("renthouseId") Long renthouseId);
+
+    // Recomputes every renthouse and rewrites only the rows that were off; returns how many were
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE renthouses r " + SET_ROOM_STATS +
+           "FROM (SELECT h.id AS renthouse_id, " + ROOM_STATS_COLUMNS + " FROM renthouses h " +
+           "LEFT JOIN floors f ON f.renthouse_id = h.id LEFT JOIN rooms rm ON rm.floor_id = f.id GROUP BY h.id) s " +
+           "WHERE r.id = s.renthouse_id AND (r.total_rooms IS DISTINCT FROM s.total_rooms " +
+           "OR r.available_rooms IS DISTINCT FROM s.available_rooms " +
+           "OR r.min_available_rent IS DISTINCT FROM s.min_available_rent " +
+           "OR r.max_available_rent IS DISTINCT FROM s.max_available_rent)", nativeQuery = true)
+    int reconcileRoomStats();
+}
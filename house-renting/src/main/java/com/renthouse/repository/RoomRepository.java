@@ -1,41 +1,75 @@
 package com.renthouse.repository;
 
+import com.renthouse.dto.RoomSummary;
 import com.renthouse.entity.Room;
+import com.renthouse.search.ListingRoomRow;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RoomRepository extends JpaRepository<Room, Long> {
+
+    // List endpoints read rows straight into RoomSummary records, without managed entities
+    String OWNER_ROOM_SUMMARY = "SELECT new com.renthouse.dto.RoomSummary(r.id, r.roomNumber, r.description, " +
+           "r.monthlyRent, r.deposit, r.status, r.bookedAt, r.createdAt, r.updatedAt, f.id, f.floorNumber, h.id, h.name, " +
+           "u.id, u.fullName, u.username, u.email, u.phoneNumber) FROM Room r JOIN r.floor f JOIN f.renthouse h ";
+
+    String TENANT_ROOM_SUMMARY = "SELECT new com.renthouse.dto.RoomSummary(r.id, r.roomNumber, r.description, " +
+           "r.monthlyRent, r.deposit, r.status, r.bookedAt, r.createdAt, r.updatedAt, f.id, f.floorNumber, h.id, h.name, " +
+           "u.id, u.fullName, CASE WHEN EXISTS (SELECT 1 FROM Favorite fav WHERE fav.room.id = r.id AND fav.user.id = :userId) " +
+           "THEN true ELSE false END) FROM Room r JOIN r.floor f JOIN f.renthouse h LEFT JOIN r.renter u ";
+
     List<Room> findByFloor_Id(Long floorId);
     List<Room> findByStatus(Room.RoomStatus status);
     List<Room> findByRenter_Id(Long renterId);
-    
+
+    // Room lists are turned into RoomDto, which reads the floor, the renthouse and the renter
+    @EntityGraph(attributePaths = {"floor", "floor.renthouse", "renter"})
     @Query("SELECT r FROM Room r WHERE r.floor.renthouse.owner.id = :ownerId")
     List<Room> findByOwnerId(@Param("ownerId") Long ownerId);
-    
-    @Query("SELECT r FROM Room r WHERE " +
-           "(:roomNumber IS NULL OR LOWER(r.roomNumber) LIKE LOWER(CONCAT('%', :roomNumber, '%'))) AND " +
-           "(:username IS NULL OR LOWER(r.renter.username) LIKE LOWER(CONCAT('%', :username, '%'))) AND " +
-           "r.floor.renthouse.owner.id = :ownerId")
-    List<Room> searchRoomsByOwner(@Param("roomNumber") String roomNumber, 
+
+    @Query("SELECT r.floor.renthouse.owner.id FROM Room r WHERE r.id = :roomId")
+    Long findOwnerIdByRoomId(@Param("roomId") Long roomId);
+
+    @Query(OWNER_ROOM_SUMMARY + "LEFT JOIN r.renter u WHERE h.owner.id = :ownerId")
+    List<RoomSummary> findSummariesByOwnerId(@Param("ownerId") Long ownerId);
+
+    // Inner join on the renter, as the implicit r.renter.username join did before
+    @Query(OWNER_ROOM_SUMMARY + "JOIN r.renter u WHERE " +
+           "(:roomNumber IS NULL OR LOWER(r.roomNumber) LIKE LOWER(CONCAT('%', CAST(:roomNumber AS String), '%'))) AND " +
+           "(:username IS NULL OR LOWER(u.username) LIKE LOWER(CONCAT('%', CAST(:username AS String), '%'))) AND " +
+           "h.owner.id = :ownerId")
+    List<RoomSummary> searchRoomsByOwner(@Param("roomNumber") String roomNumber, 
                                 @Param("username") String username, 
                                 @Param("ownerId") Long ownerId);
-    
-    @Query("SELECT r FROM Room r WHERE r.floor.renthouse.id = :renthouseId AND r.status = 'AVAILABLE'")
-    List<Room> findAvailableRoomsByRenthouse(@Param("renthouseId") Long renthouseId);
 
+    @Query(TENANT_ROOM_SUMMARY + "WHERE h.id = :renthouseId AND r.status = 'AVAILABLE'")
+    List<RoomSummary> findAvailableRoomsByRenthouse(@Param("renthouseId") Long renthouseId, @Param("userId") Long userId);
+
+    @EntityGraph(attributePaths = {"floor", "floor.renthouse", "renter"})
     Optional<Room> findFirstByRenterIdAndStatusIn(Long renterId, List<Room.RoomStatus> statuses);
 
     List<Room> findByRenterId(Long renterId);
-    
-    @Query("SELECT MAX(CAST(r.roomNumber AS INTEGER)) FROM Room r WHERE r.floor.id = :floorId")
-    Integer findMaxRoomNumberByFloorId(@Param("floorId") Long floorId);
+
+    @Query(TENANT_ROOM_SUMMARY + "WHERE u.id = :userId")
+    List<RoomSummary> findSummariesByRenterId(@Param("userId") Long renterId);
+
+    @EntityGraph(attributePaths = {"floor", "floor.renthouse", "floor.renthouse.owner", "renter"})
+    Optional<Room> findDetailedById(Long id);
+
+    @EntityGraph(attributePaths = {"floor", "floor.renthouse", "floor.renthouse.owner", "renter"})
+    List<Room> findDetailedByIdIn(Collection<Long> ids);
     
     @Query("SELECT COUNT(r) FROM Room r WHERE r.floor.renthouse.owner.id = :ownerId AND r.status != :status")
     long countByOwnerIdAndStatusNot(@Param("ownerId") Long ownerId, @Param("status") Room.RoomStatus status);
+
+    @Query("SELECT new com.renthouse.search.ListingRoomRow(r.id, r.floor.renthouse.id, r.monthlyRent, r.status) FROM Room r")
+    List<ListingRoomRow> findListingRoomRows();
 }
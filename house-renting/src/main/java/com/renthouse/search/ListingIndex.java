@@ -0,0 +1,359 @@
+package com.renthouse.search;
+
+import com.renthouse.dto.ListingSearchResult;
+import com.renthouse.entity.Room;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory inverted index over renthouse listings: name, address and description words map to the
+ * renthouses containing them, and each renthouse keeps its rooms' rent and status for the numeric
+ * filters and facets. Words are matched by prefix, so "sunr" finds "Sunrise".
+ *
+ * Reads share a read lock; replaceAll and the incremental updates take the write lock, which they
+ * hold only for in-memory work. Updates made between beginRebuild and replaceAll are recorded and
+ * replayed onto the rebuilt state, so a change that missed the rebuild's snapshot is not lost.
+ */
+public class ListingIndex {
+
+    // Per matched query word, by the best field it matched in
+    private static final int NAME_SCORE = 3;
+    private static final int ADDRESS_SCORE = 2;
+    private static final int DESCRIPTION_SCORE = 1;
+
+    private final List<BigDecimal> priceBucketBounds;
+    private final List<String> priceBucketLabels;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private State state = new State();
+
+    // Updates since beginRebuild, or null when no rebuild is running
+    private List<Consumer<State>> pendingUpdates;
+
+    private static final class State {
+        final Map<Long, Listing> listings = new HashMap<>();
+        final Map<Long, Long> renthouseByRoom = new HashMap<>();
+        final TreeMap<String, Set<Long>> postings = new TreeMap<>();
+    }
+
+    private static final class Listing {
+        ListingRow row;
+        Set<String> nameWords = Set.of();
+        Set<String> addressWords = Set.of();
+        Set<String> descriptionWords = Set.of();
+        final Map<Long, ListingRoomRow> rooms = new HashMap<>();
+
+        Set<String> allWords() {
+            Set<String> words = new HashSet<>(nameWords);
+            words.addAll(addressWords);
+            words.addAll(descriptionWords);
+            return words;
+        }
+    }
+
+    private record ScoredListing(Listing listing, int score, int availableRooms, BigDecimal minAvailableRent) {
+    }
+
+    /** @param priceBucketBounds ascending upper bounds of the base rent facet buckets, e.g. 100, 200, 500 */
+    public ListingIndex(List<BigDecimal> priceBucketBounds) {
+        this.priceBucketBounds = priceBucketBounds.stream().sorted().toList();
+        List<String> labels = new ArrayList<>();
+        BigDecimal lower = BigDecimal.ZERO;
+        for (BigDecimal bound : this.priceBucketBounds) {
+            labels.add(plain(lower) + "-" + plain(bound));
+            lower = bound;
+        }
+        labels.add(plain(lower) + "+");
+        this.priceBucketLabels = List.copyOf(labels);
+    }
+
+    /** Starts recording updates, to be replayed by the next replaceAll. Call before reading its rows. */
+    public void beginRebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingUpdates = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void replaceAll(Collection<ListingRow> renthouses, Collection<ListingRoomRow> rooms) {
+        State rebuilt = new State();
+        for (ListingRow row : renthouses) {
+            putRenthouse(rebuilt, row);
+        }
+        for (ListingRoomRow room : rooms) {
+            putRoom(rebuilt, room);
+        }
+        lock.writeLock().lock();
+        try {
+            if (pendingUpdates != null) {
+                pendingUpdates.forEach(update -> update.accept(rebuilt));
+                pendingUpdates = null;
+            }
+            state = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Drops the updates recorded by beginRebuild when the rebuild failed; the current state has them. */
+    public void abortRebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingUpdates = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds a renthouse or replaces its fields; its rooms are kept. */
+    public void putRenthouse(ListingRow row) {
+        update(target -> putRenthouse(target, row));
+    }
+
+    public void removeRenthouse(Long renthouseId) {
+        update(target -> removeRenthouse(target, renthouseId));
+    }
+
+    /** Adds or replaces a room. Rooms of renthouses not in the index are ignored. */
+    public void putRoom(ListingRoomRow room) {
+        update(target -> putRoom(target, room));
+    }
+
+    public Long renthouseOfRoom(Long roomId) {
+        lock.readLock().lock();
+        try {
+            return state.renthouseByRoom.get(roomId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.listings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public ListingSearchResult search(ListingQuery query) {
+        long start = System.nanoTime();
+        List<String> words = query.text() == null ? List.of() : SearchQueryParser.words(query.text());
+
+        Map<String, Integer> priceBuckets = new LinkedHashMap<>();
+        priceBucketLabels.forEach(label -> priceBuckets.put(label, 0));
+        Map<Room.RoomStatus, Integer> roomStatus = new EnumMap<>(Room.RoomStatus.class);
+        int renthousesWithAvailableRooms = 0;
+        int availableRooms = 0;
+        List<ScoredListing> matches = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            for (Listing listing : candidates(words)) {
+                int available = 0;
+                boolean roomInRange = query.minRoomRent() == null && query.maxRoomRent() == null;
+                BigDecimal minAvailableRent = null;
+                for (ListingRoomRow room : listing.rooms.values()) {
+                    boolean isAvailable = room.status() == Room.RoomStatus.AVAILABLE;
+                    if (isAvailable) {
+                        available++;
+                        if (room.monthlyRent() != null
+                                && (minAvailableRent == null || room.monthlyRent().compareTo(minAvailableRent) < 0)) {
+                            minAvailableRent = room.monthlyRent();
+                        }
+                    }
+                    if (!roomInRange && (isAvailable || !query.availableOnly())
+                            && within(room.monthlyRent(), query.minRoomRent(), query.maxRoomRent())) {
+                        roomInRange = true;
+                    }
+                }
+                if (!roomInRange || (query.availableOnly() && available == 0)) {
+                    continue;
+                }
+
+                BigDecimal baseRent = listing.row.baseRent();
+                if (baseRent != null) {
+                    priceBuckets.merge(priceBucketLabels.get(bucketOf(baseRent)), 1, Integer::sum);
+                }
+                if (!within(baseRent, query.minPrice(), query.maxPrice())) {
+                    continue;
+                }
+
+                for (ListingRoomRow room : listing.rooms.values()) {
+                    roomStatus.merge(room.status(), 1, Integer::sum);
+                }
+                if (available > 0) {
+                    renthousesWithAvailableRooms++;
+                    availableRooms += available;
+                }
+                matches.add(new ScoredListing(listing, score(listing, words), available, minAvailableRent));
+            }
+
+            matches.sort(Comparator.comparingInt(ScoredListing::score).reversed()
+                    .thenComparing(match -> match.listing().row.id()));
+            List<ListingSearchResult.Hit> hits = matches.stream()
+                    .limit(Math.max(query.limit(), 0))
+                    .map(match -> {
+                        ListingRow row = match.listing().row;
+                        return new ListingSearchResult.Hit(row.id(), row.name(), row.address(), row.baseRent(),
+                                match.listing().rooms.size(), match.availableRooms(), match.minAvailableRent());
+                    })
+                    .toList();
+
+            Map<String, Integer> statusCounts = new LinkedHashMap<>();
+            roomStatus.forEach((status, count) -> statusCounts.put(status.name(), count));
+            ListingSearchResult.Facets facets = new ListingSearchResult.Facets(priceBuckets, statusCounts,
+                    renthousesWithAvailableRooms, availableRooms);
+            return new ListingSearchResult(hits, matches.size(), facets, (System.nanoTime() - start) / 1_000);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Renthouses containing every query word as a prefix of one of their words
+    private Collection<Listing> candidates(List<String> words) {
+        if (words.isEmpty()) {
+            return state.listings.values();
+        }
+        List<Set<Long>> perWord = new ArrayList<>();
+        for (String word : new LinkedHashSet<>(words)) {
+            Set<Long> ids = new HashSet<>();
+            for (Set<Long> posting : state.postings.subMap(word, true, word + Character.MAX_VALUE, true).values()) {
+                ids.addAll(posting);
+            }
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            perWord.add(ids);
+        }
+        perWord.sort(Comparator.comparingInt(Set::size));
+        Set<Long> ids = perWord.get(0);
+        for (int i = 1; i < perWord.size() && !ids.isEmpty(); i++) {
+            ids.retainAll(perWord.get(i));
+        }
+        List<Listing> listings = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            listings.add(state.listings.get(id));
+        }
+        return listings;
+    }
+
+    private static int score(Listing listing, List<String> words) {
+        int score = 0;
+        for (String word : words) {
+            if (hasPrefix(listing.nameWords, word)) {
+                score += NAME_SCORE;
+            } else if (hasPrefix(listing.addressWords, word)) {
+                score += ADDRESS_SCORE;
+            } else if (hasPrefix(listing.descriptionWords, word)) {
+                score += DESCRIPTION_SCORE;
+            }
+        }
+        return score;
+    }
+
+    private static boolean hasPrefix(Set<String> fieldWords, String prefix) {
+        for (String word : fieldWords) {
+            if (word.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void update(Consumer<State> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(state);
+            if (pendingUpdates != null) {
+                pendingUpdates.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void putRenthouse(State state, ListingRow row) {
+        Listing listing = state.listings.get(row.id());
+        if (listing == null) {
+            listing = new Listing();
+            state.listings.put(row.id(), listing);
+        } else {
+            unindexWords(state, row.id(), listing.allWords());
+        }
+        listing.row = row;
+        listing.nameWords = wordSet(row.name());
+        listing.addressWords = wordSet(row.address());
+        listing.descriptionWords = wordSet(row.description());
+        for (String word : listing.allWords()) {
+            state.postings.computeIfAbsent(word, key -> new HashSet<>()).add(row.id());
+        }
+    }
+
+    private static void removeRenthouse(State state, Long renthouseId) {
+        Listing listing = state.listings.remove(renthouseId);
+        if (listing != null) {
+            unindexWords(state, renthouseId, listing.allWords());
+            listing.rooms.keySet().forEach(state.renthouseByRoom::remove);
+        }
+    }
+
+    private static void putRoom(State state, ListingRoomRow room) {
+        Listing listing = state.listings.get(room.renthouseId());
+        if (listing == null) {
+            return;
+        }
+        listing.rooms.put(room.roomId(), room);
+        state.renthouseByRoom.put(room.roomId(), room.renthouseId());
+    }
+
+    private static void unindexWords(State state, Long renthouseId, Set<String> words) {
+        for (String word : words) {
+            Set<Long> posting = state.postings.get(word);
+            if (posting != null && posting.remove(renthouseId) && posting.isEmpty()) {
+                state.postings.remove(word);
+            }
+        }
+    }
+
+    private static Set<String> wordSet(String text) {
+        return text == null ? Set.of() : Set.copyOf(SearchQueryParser.words(text));
+    }
+
+    private int bucketOf(BigDecimal baseRent) {
+        for (int i = 0; i < priceBucketBounds.size(); i++) {
+            if (baseRent.compareTo(priceBucketBounds.get(i)) < 0) {
+                return i;
+            }
+        }
+        return priceBucketBounds.size();
+    }
+
+    private static boolean within(BigDecimal value, BigDecimal min, BigDecimal max) {
+        if (min == null && max == null) {
+            return true;
+        }
+        return value != null && (min == null || value.compareTo(min) >= 0) && (max == null || value.compareTo(max) <= 0);
+    }
+
+    private static String plain(BigDecimal value) {
+        return value.stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,93 @@
+package com.renthouse.search;
+
+import com.renthouse.config.AfterCommit;
+import com.renthouse.dto.ListingSearchResult;
+import com.renthouse.entity.Renthouse;
+import com.renthouse.entity.Room;
+import com.renthouse.repository.RenthouseRepository;
+import com.renthouse.repository.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Keeps the ListingIndex in step with the database. It is built once the application is ready and
+ * rebuilt every listing-index.rebuild-interval-ms, which picks up changes made outside the services
+ * (bulk imports, manual SQL). In between, the owner and tenant services report their changes here
+ * and they are applied when the transaction commits, from entity state the service already loaded,
+ * so an update costs no extra SQL. Changes that commit while a rebuild is reading are replayed onto
+ * the rebuilt index.
+ */
+@Service
+public class ListingIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingIndexService.class);
+
+    @Autowired
+    private RenthouseRepository renthouseRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ListingIndex index;
+
+    public ListingIndexService(@Value("${listing-index.price-buckets:100,200,300,500}") List<BigDecimal> priceBuckets) {
+        this.index = new ListingIndex(priceBuckets);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${listing-index.rebuild-interval-ms:600000}",
+            initialDelayString = "${listing-index.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        // Read on the primary: a lagging replica's snapshot could predate beginRebuild, and changes
+        // committed in between would be neither in the snapshot nor replayed
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        index.beginRebuild();
+        try {
+            transaction.executeWithoutResult(status ->
+                    index.replaceAll(renthouseRepository.findListingRows(), roomRepository.findListingRoomRows()));
+        } catch (RuntimeException e) {
+            index.abortRebuild();
+            throw e;
+        }
+        logger.info("Listing index built: {} renthouses in {}ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public ListingSearchResult search(ListingQuery query) {
+        return index.search(query);
+    }
+
+    public void renthouseSaved(Renthouse renthouse) {
+        ListingRow row = new ListingRow(renthouse.getId(), renthouse.getName(), renthouse.getAddress(),
+                renthouse.getDescription(), renthouse.getBaseRent());
+        AfterCommit.run(() -> index.putRenthouse(row));
+    }
+
+    public void renthouseDeleted(Long renthouseId) {
+        AfterCommit.run(() -> index.removeRenthouse(renthouseId));
+    }
+
+    public void roomSaved(Room room) {
+        // Known rooms are looked up so that a room loaded without its floor does not load it here
+        Long renthouseId = index.renthouseOfRoom(room.getId());
+        if (renthouseId == null) {
+            renthouseId = room.getFloor().getRenthouse().getId();
+        }
+        ListingRoomRow row = new ListingRoomRow(room.getId(), renthouseId, room.getMonthlyRent(), room.getStatus());
+        AfterCommit.run(() -> index.putRoom(row));
+    }
+}
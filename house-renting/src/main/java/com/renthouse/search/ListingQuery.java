@@ -0,0 +1,11 @@
+package com.renthouse.search;
+
+import java.math.BigDecimal;
+
+/**
+ * Listing search filters. Price bounds apply to the renthouse base rent, room rent bounds to its rooms
+ * (only the available ones when availableOnly is set); null means unbounded.
+ */
+public record ListingQuery(String text, BigDecimal minPrice, BigDecimal maxPrice,
+                           BigDecimal minRoomRent, BigDecimal maxRoomRent, boolean availableOnly, int limit) {
+}
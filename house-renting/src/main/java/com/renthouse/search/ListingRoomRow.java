@@ -0,0 +1,9 @@
+package com.renthouse.search;
+
+import com.renthouse.entity.Room;
+
+import java.math.BigDecimal;
+
+/** The room fields the listing index keeps, loaded by RoomRepository.findListingRoomRows. */
+public record ListingRoomRow(Long roomId, Long renthouseId, BigDecimal monthlyRent, Room.RoomStatus status) {
+}
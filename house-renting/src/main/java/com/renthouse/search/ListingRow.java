@@ -0,0 +1,7 @@
+package com.renthouse.search;
+
+import java.math.BigDecimal;
+
+/** The renthouse fields the listing index keeps, loaded by RenthouseRepository.findListingRows. */
+public record ListingRow(Long id, String name, String address, String description, BigDecimal baseRent) {
+}
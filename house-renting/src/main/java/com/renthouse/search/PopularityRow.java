@@ -0,0 +1,5 @@
+package com.renthouse.search;
+
+/** How many favorites a renthouse's rooms have, loaded by FavoriteRepository.countByRenthouse. */
+public record PopularityRow(Long renthouseId, Long favorites) {
+}
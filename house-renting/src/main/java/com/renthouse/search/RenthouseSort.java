@@ -0,0 +1,6 @@
+package com.renthouse.search;
+
+/** Result orders of the renthouse search; the rent orders go by the cheapest available room. */
+public enum RenthouseSort {
+    RELEVANCE, RENT_ASC, RENT_DESC, AVAILABILITY
+}
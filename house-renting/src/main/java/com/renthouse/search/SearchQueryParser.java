@@ -0,0 +1,141 @@
+package com.renthouse.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Turns what a user types into the search box into a Postgres tsquery for the weighted
+ * renthouses.search_vector column (see search-migration.sql).
+ *
+ * Words are AND-ed and prefix-matched, so "sunr resid" finds "Sunrise Residence". "OR" (or |)
+ * between words makes alternatives, a leading - excludes a word, and "quoted words" must appear
+ * next to each other in that order. Only letters and digits reach the tsquery, so the output can
+ * never be a tsquery syntax error whatever the input.
+ */
+public final class SearchQueryParser {
+
+    /**
+     * @param tsQuery    input for to_tsquery('simple', ...)
+     * @param fuzzyText  the positive words, for trigram matching when a word is misspelled
+     * @param exclusions the excluded words as their own tsquery, so trigram matches respect them too
+     */
+    public record ParsedQuery(String tsQuery, String fuzzyText, String exclusions) {
+    }
+
+    private SearchQueryParser() {
+    }
+
+    /**
+     * @param weights the search_vector weights to match, e.g. "AC" for name and description
+     * @return null when the input has no searchable words
+     */
+    public static ParsedQuery parse(String input, String weights) {
+        if (input == null || input.isBlank()) {
+            return null;
+        }
+        StringBuilder tsQuery = new StringBuilder();
+        List<String> positiveWords = new ArrayList<>();
+        List<String> exclusions = new ArrayList<>();
+        String pendingOperator = null;
+        int i = 0;
+        int length = input.length();
+        while (i < length) {
+            char c = input.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (c == '|') {
+                pendingOperator = " | ";
+                i++;
+                continue;
+            }
+
+            boolean negated = false;
+            if (c == '-' && i + 1 < length && !Character.isWhitespace(input.charAt(i + 1))) {
+                negated = true;
+                c = input.charAt(++i);
+            }
+
+            List<String> words;
+            boolean phrase = c == '"';
+            if (phrase) {
+                int close = input.indexOf('"', i + 1);
+                int end = close < 0 ? length : close;
+                words = words(input.substring(i + 1, end));
+                i = close < 0 ? length : close + 1;
+            } else {
+                int end = i;
+                while (end < length && !Character.isWhitespace(input.charAt(end)) && input.charAt(end) != '|') {
+                    end++;
+                }
+                String token = input.substring(i, end);
+                i = end;
+                if (!negated && token.equalsIgnoreCase("or")) {
+                    pendingOperator = " | ";
+                    continue;
+                }
+                words = words(token);
+            }
+            if (words.isEmpty()) {
+                continue;
+            }
+
+            // An operator only joins two operands, so a leading or doubled OR is dropped
+            if (!tsQuery.isEmpty()) {
+                tsQuery.append(pendingOperator != null ? pendingOperator : " & ");
+            }
+            pendingOperator = null;
+            String operand = operand(words, phrase, weights);
+            if (negated) {
+                operand = "!" + operand;
+                exclusions.add(operand);
+            } else {
+                positiveWords.addAll(words);
+            }
+            tsQuery.append(operand);
+        }
+        if (tsQuery.isEmpty()) {
+            return null;
+        }
+        return new ParsedQuery(tsQuery.toString(),
+                positiveWords.isEmpty() ? null : String.join(" ", positiveWords),
+                exclusions.isEmpty() ? null : String.join(" & ", exclusions));
+    }
+
+    // A word split by punctuation ("tuol-kork") is matched like a phrase, as to_tsvector splits it
+    private static String operand(List<String> words, boolean phrase, String weights) {
+        StringBuilder operand = new StringBuilder();
+        for (String word : words) {
+            if (!operand.isEmpty()) {
+                operand.append(" <-> ");
+            }
+            operand.append(word).append(':').append(phrase ? "" : "*").append(weights);
+        }
+        return words.size() > 1 ? "(" + operand + ")" : operand.toString();
+    }
+
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && isWordChar(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    // Combining marks count as word characters so scripts such as Khmer keep their vowel signs
+    private static boolean isWordChar(char c) {
+        int type = Character.getType(c);
+        return Character.isLetterOrDigit(c)
+                || type == Character.NON_SPACING_MARK
+                || type == Character.COMBINING_SPACING_MARK;
+    }
+}
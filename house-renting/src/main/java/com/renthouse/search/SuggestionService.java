@@ -0,0 +1,219 @@
+package com.renthouse.search;
+
+import com.renthouse.config.AfterCommit;
+import com.renthouse.dto.Suggestion;
+import com.renthouse.entity.Renthouse;
+import com.renthouse.repository.FavoriteRepository;
+import com.renthouse.repository.RenthouseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Typeahead over renthouse names and the places in their addresses, served from a SuggestionTrie.
+ *
+ * A renthouse is found by any run of words from its name ("sunr", "sunrise res", "resid" all find
+ * "Sunrise Residence"), and ranks by how many favorites its rooms have. Address words of three or
+ * more letters become place suggestions, ranked by the renthouses they cover. Like the listing index,
+ * the trie is built when the application is ready, rebuilt every suggest.rebuild-interval-ms (which
+ * also refreshes the favorite counts) and updated on commit when OwnerService saves or deletes a
+ * renthouse. Updates that commit while a rebuild is reading are replayed onto the rebuilt trie.
+ */
+@Service
+public class SuggestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestionService.class);
+
+    private static final int MIN_LOCATION_LENGTH = 3;
+
+    @Autowired
+    private RenthouseRepository renthouseRepository;
+
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private State state = new State();
+
+    // Updates made while rebuild reads, replayed onto the rebuilt state; null when no rebuild runs
+    private List<Consumer<State>> pendingUpdates;
+
+    private static final class State {
+        final SuggestionTrie<Suggestion> trie = new SuggestionTrie<>();
+        final Map<Long, IndexedRenthouse> renthouses = new HashMap<>();
+        final Map<Long, Long> favorites = new HashMap<>();
+        final Map<String, Location> locations = new HashMap<>();
+    }
+
+    private record IndexedRenthouse(Suggestion suggestion, Set<String> nameKeys, Set<String> locations, long score) {
+    }
+
+    private static final class Location {
+        final Suggestion suggestion;
+        int renthouses;
+        long score;
+
+        Location(String word) {
+            this.suggestion = new Suggestion(displayName(word), Suggestion.Type.LOCATION, null);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${suggest.rebuild-interval-ms:600000}",
+            initialDelayString = "${suggest.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        State rebuilt = new State();
+        // Read on the primary, as in ListingIndexService: a replica snapshot could predate the recording
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        setPendingUpdates(new ArrayList<>());
+        try {
+            transaction.executeWithoutResult(status -> {
+                for (PopularityRow row : favoriteRepository.countByRenthouse()) {
+                    rebuilt.favorites.put(row.renthouseId(), row.favorites());
+                }
+                for (ListingRow row : renthouseRepository.findListingRows()) {
+                    put(rebuilt, row.id(), row.name(), row.address());
+                }
+            });
+        } catch (RuntimeException e) {
+            setPendingUpdates(null);
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            pendingUpdates.forEach(update -> update.accept(rebuilt));
+            pendingUpdates = null;
+            state = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Suggestion trie built: {} keys in {}ms", rebuilt.trie.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public List<Suggestion> suggest(String query, int limit) {
+        if (query == null) {
+            return List.of();
+        }
+        String prefix = String.join(" ", SearchQueryParser.words(query));
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return state.trie.top(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void renthouseSaved(Renthouse renthouse) {
+        Long id = renthouse.getId();
+        String name = renthouse.getName();
+        String address = renthouse.getAddress();
+        AfterCommit.run(() -> update(target -> put(target, id, name, address)));
+    }
+
+    public void renthouseDeleted(Long renthouseId) {
+        AfterCommit.run(() -> update(target -> {
+            remove(target, renthouseId);
+            target.favorites.remove(renthouseId);
+        }));
+    }
+
+    private void update(Consumer<State> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(state);
+            if (pendingUpdates != null) {
+                pendingUpdates.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setPendingUpdates(List<Consumer<State>> updates) {
+        lock.writeLock().lock();
+        try {
+            pendingUpdates = updates;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Adds a renthouse, or re-indexes it under its new name and address
+    private static void put(State target, Long id, String name, String address) {
+        remove(target, id);
+        List<String> nameWords = name == null ? List.of() : SearchQueryParser.words(name);
+        Set<String> nameKeys = new LinkedHashSet<>();
+        for (int i = 0; i < nameWords.size(); i++) {
+            nameKeys.add(String.join(" ", nameWords.subList(i, nameWords.size())));
+        }
+        Set<String> locations = new LinkedHashSet<>();
+        if (address != null) {
+            for (String word : SearchQueryParser.words(address)) {
+                if (word.length() >= MIN_LOCATION_LENGTH && !word.chars().allMatch(Character::isDigit)) {
+                    locations.add(word);
+                }
+            }
+        }
+        long score = 1 + target.favorites.getOrDefault(id, 0L);
+        Suggestion suggestion = new Suggestion(name, Suggestion.Type.RENTHOUSE, id);
+        for (String key : nameKeys) {
+            target.trie.put(key, suggestion, score);
+        }
+        for (String word : locations) {
+            Location location = target.locations.computeIfAbsent(word, Location::new);
+            location.renthouses++;
+            location.score += score;
+            target.trie.put(word, location.suggestion, location.score);
+        }
+        target.renthouses.put(id, new IndexedRenthouse(suggestion, nameKeys, locations, score));
+    }
+
+    private static void remove(State target, Long id) {
+        IndexedRenthouse indexed = target.renthouses.remove(id);
+        if (indexed == null) {
+            return;
+        }
+        for (String key : indexed.nameKeys()) {
+            target.trie.remove(key, indexed.suggestion());
+        }
+        for (String word : indexed.locations()) {
+            Location location = target.locations.get(word);
+            location.renthouses--;
+            location.score -= indexed.score();
+            if (location.renthouses == 0) {
+                target.locations.remove(word);
+                target.trie.remove(word, location.suggestion);
+            } else {
+                target.trie.put(word, location.suggestion, location.score);
+            }
+        }
+    }
+
+    private static String displayName(String word) {
+        return word.substring(0, 1).toUpperCase(Locale.ROOT) + word.substring(1);
+    }
+}
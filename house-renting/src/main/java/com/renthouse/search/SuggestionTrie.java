@@ -0,0 +1,248 @@
+package com.renthouse.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Radix trie from keys to scored values, for typeahead. Each edge holds a run of characters rather
+ * than a single one and children live in a small array sorted by first character, so a few
+ * thousand names and address words cost a few thousand nodes.
+ *
+ * Every node also records the highest score below it. top(prefix, k) walks down to the prefix and
+ * then expands the best-scored node first, so it stops after finding k values instead of visiting
+ * every key that starts with the prefix.
+ *
+ * Not thread-safe; SuggestionService guards it with a lock.
+ */
+public class SuggestionTrie<T> {
+
+    private static final Node<?>[] NO_CHILDREN = new Node<?>[0];
+
+    private final Node<T> root = new Node<>("");
+    private int size;
+
+    private static final class Node<T> {
+        String label;
+        @SuppressWarnings("unchecked")
+        Node<T>[] children = (Node<T>[]) NO_CHILDREN;
+        List<Entry<T>> entries;
+        long maxScore = Long.MIN_VALUE;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int childIndex(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = children[mid].label.charAt(0);
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insertChild(int index, Node<T> child) {
+            Node<T>[] grown = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            grown[index] = child;
+            children = grown;
+        }
+
+        void removeChild(int index) {
+            Node<T>[] shrunk = Arrays.copyOf(children, children.length - 1);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+
+        void recomputeMaxScore() {
+            long max = Long.MIN_VALUE;
+            if (entries != null) {
+                for (Entry<T> entry : entries) {
+                    max = Math.max(max, entry.score);
+                }
+            }
+            for (Node<T> child : children) {
+                max = Math.max(max, child.maxScore);
+            }
+            maxScore = max;
+        }
+    }
+
+    private record Entry<T>(T value, long score) {
+    }
+
+    // A node or an entry waiting to be expanded; seq keeps equal scores in key order
+    private record Candidate<T>(long score, long seq, Node<T> node, Entry<T> entry) {
+    }
+
+    /** Adds value under key, or changes its score if it is already there. */
+    public void put(String key, T value, long score) {
+        remove(key, value);
+        put(root, key, 0, new Entry<>(value, score));
+        size++;
+    }
+
+    /** @return whether value was stored under key */
+    public boolean remove(String key, T value) {
+        if (remove(root, key, 0, value)) {
+            size--;
+            return true;
+        }
+        return false;
+    }
+
+    /** The number of key-value pairs. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The k highest-scored distinct values stored under keys starting with prefix, best first. A value
+     * stored under several matching keys counts once, with its best score.
+     */
+    public List<T> top(String prefix, int k) {
+        List<T> results = new ArrayList<>();
+        Node<T> start = find(prefix);
+        if (start == null || k <= 0) {
+            return results;
+        }
+        PriorityQueue<Candidate<T>> queue = new PriorityQueue<>(
+                Comparator.<Candidate<T>>comparingLong(Candidate::score).reversed()
+                        .thenComparingLong(Candidate::seq));
+        Set<T> seen = new HashSet<>();
+        long seq = 0;
+        queue.add(new Candidate<>(start.maxScore, seq++, start, null));
+        while (!queue.isEmpty() && results.size() < k) {
+            Candidate<T> candidate = queue.poll();
+            if (candidate.entry() != null) {
+                if (seen.add(candidate.entry().value())) {
+                    results.add(candidate.entry().value());
+                }
+                continue;
+            }
+            Node<T> node = candidate.node();
+            if (node.entries != null) {
+                for (Entry<T> entry : node.entries) {
+                    queue.add(new Candidate<>(entry.score(), seq++, null, entry));
+                }
+            }
+            for (Node<T> child : node.children) {
+                queue.add(new Candidate<>(child.maxScore, seq++, child, null));
+            }
+        }
+        return results;
+    }
+
+    // The node whose subtree holds exactly the keys starting with prefix
+    private Node<T> find(String prefix) {
+        Node<T> node = root;
+        int offset = 0;
+        while (offset < prefix.length()) {
+            int index = node.childIndex(prefix.charAt(offset));
+            if (index < 0) {
+                return null;
+            }
+            Node<T> child = node.children[index];
+            int remaining = prefix.length() - offset;
+            if (remaining <= child.label.length()) {
+                return child.label.startsWith(prefix.substring(offset)) ? child : null;
+            }
+            if (!prefix.startsWith(child.label, offset)) {
+                return null;
+            }
+            offset += child.label.length();
+            node = child;
+        }
+        return node;
+    }
+
+    private void put(Node<T> node, String key, int offset, Entry<T> entry) {
+        node.maxScore = Math.max(node.maxScore, entry.score());
+        if (offset == key.length()) {
+            if (node.entries == null) {
+                node.entries = new ArrayList<>(1);
+            }
+            node.entries.add(entry);
+            return;
+        }
+        int index = node.childIndex(key.charAt(offset));
+        if (index < 0) {
+            Node<T> leaf = new Node<>(key.substring(offset));
+            put(leaf, key, key.length(), entry);
+            node.insertChild(-(index + 1), leaf);
+            return;
+        }
+        Node<T> child = node.children[index];
+        int common = commonPrefixLength(child.label, key, offset);
+        if (common < child.label.length()) {
+            // The key leaves the edge part way along: split it at that point
+            Node<T> split = new Node<>(child.label.substring(0, common));
+            child.label = child.label.substring(common);
+            split.children = newChildren(child);
+            split.maxScore = child.maxScore;
+            node.children[index] = split;
+            child = split;
+        }
+        put(child, key, offset + common, entry);
+    }
+
+    private boolean remove(Node<T> node, String key, int offset, T value) {
+        if (offset == key.length()) {
+            if (node.entries == null || !node.entries.removeIf(entry -> entry.value().equals(value))) {
+                return false;
+            }
+            if (node.entries.isEmpty()) {
+                node.entries = null;
+            }
+            node.recomputeMaxScore();
+            return true;
+        }
+        int index = node.childIndex(key.charAt(offset));
+        if (index < 0) {
+            return false;
+        }
+        Node<T> child = node.children[index];
+        if (!key.startsWith(child.label, offset) || !remove(child, key, offset + child.label.length(), value)) {
+            return false;
+        }
+        // Drop emptied nodes and merge a pass-through node into its only child, so the trie stays compact
+        if (child.entries == null && child.children.length == 0) {
+            node.removeChild(index);
+        } else if (child.entries == null && child.children.length == 1) {
+            Node<T> grandchild = child.children[0];
+            grandchild.label = child.label + grandchild.label;
+            node.children[index] = grandchild;
+        }
+        node.recomputeMaxScore();
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T>[] newChildren(Node<T> child) {
+        Node<T>[] children = (Node<T>[]) new Node<?>[1];
+        children[0] = child;
+        return children;
+    }
+
+    private static int commonPrefixLength(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+}
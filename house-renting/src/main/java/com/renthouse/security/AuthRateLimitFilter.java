@@ -0,0 +1,196 @@
+package com.renthouse.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.renthouse.dto.ApiResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles POSTs to /api/auth/** with a token bucket per client IP and another per username, so a
+ * credential-stuffing burst is turned away with 429 before it reaches BCrypt. The IP is checked
+ * first, before the body is read; the username comes from the JSON body, which is buffered and
+ * replayed to the controller.
+ *
+ * GET /api/auth/availability is public and answers "is this name taken?", so it gets a per-IP bucket
+ * of its own (looser, since it is called while someone types) to keep it from being used to
+ * enumerate accounts or to drive the database lookups behind a Bloom filter hit.
+ *
+ * Buckets back to full are dropped every sweep-interval-ms. Past max-tracked-keys new IPs or
+ * usernames are not tracked until the next sweep, and the bounded hashing pool
+ * (BoundedPasswordEncoder) is what limits them.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private static final String AVAILABILITY_PATH = "/api/auth/availability";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${auth.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.rate-limit.ip.capacity:30}")
+    private int ipCapacity;
+
+    @Value("${auth.rate-limit.ip.refill-per-minute:30}")
+    private int ipRefillPerMinute;
+
+    @Value("${auth.rate-limit.username.capacity:5}")
+    private int usernameCapacity;
+
+    @Value("${auth.rate-limit.username.refill-per-minute:5}")
+    private int usernameRefillPerMinute;
+
+    @Value("${auth.rate-limit.availability.capacity:60}")
+    private int availabilityCapacity;
+
+    @Value("${auth.rate-limit.availability.refill-per-minute:60}")
+    private int availabilityRefillPerMinute;
+
+    @Value("${auth.rate-limit.max-tracked-keys:100000}")
+    private int maxTrackedKeys;
+
+    private final ConcurrentHashMap<String, TokenBucket> ipBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TokenBucket> usernameBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TokenBucket> availabilityBuckets = new ConcurrentHashMap<>();
+
+    private final Counter ipThrottled;
+    private final Counter usernameThrottled;
+    private final Counter availabilityThrottled;
+
+    public AuthRateLimitFilter(MeterRegistry meterRegistry) {
+        this.ipThrottled = throttledCounter(meterRegistry, "ip");
+        this.usernameThrottled = throttledCounter(meterRegistry, "username");
+        this.availabilityThrottled = throttledCounter(meterRegistry, "availability");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !(isAuthPost(request) || isAvailabilityCheck(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long now = System.nanoTime();
+        if (isAvailabilityCheck(request)) {
+            long wait = acquire(availabilityBuckets, request.getRemoteAddr(), availabilityCapacity,
+                    availabilityRefillPerMinute, now);
+            if (wait > 0) {
+                availabilityThrottled.increment();
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, wait, "Too many availability checks from this address");
+                return;
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long wait = acquire(ipBuckets, request.getRemoteAddr(), ipCapacity, ipRefillPerMinute, now);
+        if (wait > 0) {
+            ipThrottled.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, wait, "Too many requests from this address");
+            return;
+        }
+
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            reject(response, HttpStatus.PAYLOAD_TOO_LARGE, 0, "Request body too large");
+            return;
+        }
+        String username = usernameOf(body);
+        if (username != null) {
+            wait = acquire(usernameBuckets, username, usernameCapacity, usernameRefillPerMinute, now);
+            if (wait > 0) {
+                usernameThrottled.increment();
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, wait, "Too many attempts for this username");
+                return;
+            }
+        }
+        filterChain.doFilter(new BufferedBodyRequest(request, body), response);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.rate-limit.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        ipBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        usernameBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        availabilityBuckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private static boolean isAuthPost(HttpServletRequest request) {
+        return "POST".equals(request.getMethod()) && request.getRequestURI().startsWith("/api/auth/");
+    }
+
+    private static boolean isAvailabilityCheck(HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) && AVAILABILITY_PATH.equals(request.getRequestURI());
+    }
+
+    private long acquire(ConcurrentHashMap<String, TokenBucket> buckets, String key, int capacity,
+                         int refillPerMinute, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxTrackedKeys) {
+                return 0;
+            }
+            long refillInterval = TimeUnit.MINUTES.toNanos(1) / Math.max(refillPerMinute, 1);
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, refillInterval, now));
+        }
+        return bucket.tryAcquire(now);
+    }
+
+    // Malformed JSON is left for the controller to reject
+    private String usernameOf(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode username = objectMapper.readTree(body).path("username");
+            return username.isTextual() && !username.asText().isBlank()
+                    ? username.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, long waitNanos, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (waitNanos > 0) {
+            long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        }
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(message));
+    }
+
+    private static Counter throttledCounter(MeterRegistry meterRegistry, String limit) {
+        return Counter.builder("auth.throttled")
+                .description("Auth requests refused by the rate limiter")
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+}
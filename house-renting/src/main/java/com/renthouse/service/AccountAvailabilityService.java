@@ -0,0 +1,143 @@
+package com.renthouse.service;
+
+import com.renthouse.repository.UserRepository;
+import com.renthouse.security.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Answers "is this username / email taken?" from a Bloom filter of every registered one, so a free
+ * name (the usual answer while someone types) costs no query. Only a possible hit goes to the
+ * unique index. The filter cannot forget a name it was given, so it never calls a taken name free;
+ * a name inserted behind its back (manual SQL) is still caught by the unique constraint on insert.
+ *
+ * The filter is built when the application is ready and rebuilt, resized to the current user
+ * count, every account-availability.rebuild-interval-ms. Until the first build every lookup goes
+ * to the database.
+ */
+@Service
+public class AccountAvailabilityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountAvailabilityService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${account-availability.expected-accounts:100000}")
+    private long expectedAccounts;
+
+    @Value("${account-availability.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+
+    // The filter being rebuilt; registrations go into it too so none is lost when it replaces filter
+    private volatile BloomFilter building;
+
+    private final Counter answeredByFilter;
+    private final Counter answeredByDatabase;
+
+    public AccountAvailabilityService(MeterRegistry meterRegistry) {
+        this.answeredByFilter = lookupCounter(meterRegistry, "filter");
+        this.answeredByDatabase = lookupCounter(meterRegistry, "database");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${account-availability.rebuild-interval-ms:3600000}",
+            initialDelayString = "${account-availability.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        long accounts = readOnlyTransaction.execute(status -> userRepository.count());
+        // Two keys per account, with room for the user count to double before the next rebuild
+        BloomFilter rebuilt = new BloomFilter(2 * Math.max(expectedAccounts, 2 * accounts), falsePositiveRate);
+        building = rebuilt;
+        readOnlyTransaction.executeWithoutResult(status -> {
+            userRepository.findAllUsernames().forEach(username -> rebuilt.add(usernameKey(username)));
+            userRepository.findAllEmails().forEach(email -> rebuilt.add(emailKey(email)));
+        });
+        filter = rebuilt;
+        building = null;
+        logger.info("Account availability filter built for {} accounts in {}ms", accounts,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        if (!mightBeTakenUsername(username)) {
+            return true;
+        }
+        return !userRepository.existsByUsername(username);
+    }
+
+    public boolean isEmailAvailable(String email) {
+        if (!mightBeTakenEmail(email)) {
+            return true;
+        }
+        return !userRepository.existsByEmail(email);
+    }
+
+    /** false means definitely free; true means the unique index has to be asked. */
+    public boolean mightBeTakenUsername(String username) {
+        return mightContain(usernameKey(username));
+    }
+
+    public boolean mightBeTakenEmail(String email) {
+        return mightContain(emailKey(email));
+    }
+
+    public void registered(String username, String email) {
+        add(usernameKey(username));
+        add(emailKey(email));
+    }
+
+    private boolean mightContain(String key) {
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(key)) {
+            answeredByFilter.increment();
+            return false;
+        }
+        answeredByDatabase.increment();
+        return true;
+    }
+
+    // building is read first: once it is seen as null, filter is already the rebuilt one (if any)
+    private void add(String key) {
+        BloomFilter next = building;
+        BloomFilter current = filter;
+        if (current != null) {
+            current.add(key);
+        }
+        if (next != null) {
+            next.add(key);
+        }
+    }
+
+    private static String usernameKey(String username) {
+        return "u:" + username;
+    }
+
+    private static String emailKey(String email) {
+        return "e:" + email;
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String answeredBy) {
+        return Counter.builder("auth.availability.lookups")
+                .description("Username and email availability lookups, by what answered them")
+                .tag("answered_by", answeredBy)
+                .register(meterRegistry);
+    }
+}
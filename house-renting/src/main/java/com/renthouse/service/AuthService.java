@@ -1,12 +1,16 @@
 package com.renthouse.service;
 
+import com.renthouse.config.ReadYourWritesTracker;
 import com.renthouse.dto.AuthResponse;
+import com.renthouse.dto.AvailabilityResponse;
 import com.renthouse.dto.LoginRequest;
 import com.renthouse.dto.RegisterRequest;
 import com.renthouse.entity.User;
 import com.renthouse.repository.UserRepository;
 import com.renthouse.security.JwtUtils;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -29,6 +33,12 @@ public class AuthService {
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private AccountAvailabilityService accountAvailabilityService;
+
+    @Autowired
+    private ObjectProvider<ReadYourWritesTracker> readYourWritesTracker;
+
     public AuthResponse login(LoginRequest loginRequest) {
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword())
@@ -41,12 +51,24 @@ public class AuthService {
         return new AuthResponse(jwt, user.getId(), user.getUsername(), user.getEmail(), user.getFullName(), user.getRole());
     }
 
+    public AvailabilityResponse checkAvailability(String username, String email) {
+        if (username == null && email == null) {
+            throw new RuntimeException("Username or email is required");
+        }
+        return new AvailabilityResponse(
+                username != null ? accountAvailabilityService.isUsernameAvailable(username) : null,
+                email != null ? accountAvailabilityService.isEmailAvailable(email) : null);
+    }
+
     public AuthResponse register(RegisterRequest registerRequest) {
-        if (userRepository.existsByUsername(registerRequest.getUsername())) {
+        // Names the filter has never seen skip the lookups; the unique constraints still guard the insert
+        if (accountAvailabilityService.mightBeTakenUsername(registerRequest.getUsername())
+                && userRepository.existsByUsername(registerRequest.getUsername())) {
             throw new RuntimeException("Username is already taken!");
         }
 
-        if (userRepository.existsByEmail(registerRequest.getEmail())) {
+        if (accountAvailabilityService.mightBeTakenEmail(registerRequest.getEmail())
+                && userRepository.existsByEmail(registerRequest.getEmail())) {
             throw new RuntimeException("Email is already in use!");
         }
 
@@ -58,13 +80,23 @@ public class AuthService {
         user.setPhoneNumber(registerRequest.getPhoneNumber());
         user.setRole(registerRequest.getRole());
 
-        User savedUser = userRepository.save(user);
-
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(registerRequest.getUsername(), registerRequest.getPassword())
-        );
-
-        String jwt = jwtUtils.generateToken((User) authentication.getPrincipal());
+        User savedUser;
+        try {
+            savedUser = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Taken by a concurrent registration, or written without going through this service
+            accountAvailabilityService.registered(registerRequest.getUsername(), registerRequest.getEmail());
+            throw new RuntimeException(userRepository.existsByUsername(registerRequest.getUsername())
+                    ? "Username is already taken!" : "Email is already in use!");
+        }
+        accountAvailabilityService.registered(savedUser.getUsername(), savedUser.getEmail());
+        // Nobody is signed in yet, so the routing data source could not tie this write to a user. The
+        // returned token comes straight back, and its user lookup must not go to a replica without the row
+        readYourWritesTracker.ifAvailable(tracker -> tracker.recordWrite(savedUser.getUsername()));
+
+        // The user was just created with this password, so there is nothing to check: authenticating
+        // here would only run BCrypt a second time
+        String jwt = jwtUtils.generateToken(savedUser);
 
         return new AuthResponse(jwt, savedUser.getId(), savedUser.getUsername(), 
                                savedUser.getEmail(), savedUser.getFullName(), savedUser.getRole());
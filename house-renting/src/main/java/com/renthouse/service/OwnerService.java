@@ -3,25 +3,47 @@ package com.renthouse.service;
 import com.renthouse.dto.*;
 import com.renthouse.dto.request.*;
 import com.renthouse.entity.*;
+import com.renthouse.events.EventStreamService;
+import com.renthouse.fields.FieldSelection;
+import com.renthouse.mapper.DtoMapper;
+import com.renthouse.search.ListingIndexService;
+import com.renthouse.search.SuggestionService;
 import com.renthouse.repository.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 public class OwnerService {
 
+    private static final Logger logger = LoggerFactory.getLogger(OwnerService.class);
+
     @Autowired
     private RenthouseRepository renthouseRepository;
 
@@ -37,22 +59,51 @@ public class OwnerService {
     @Autowired
     private UserRepository userRepository;
 
-    public List<RenthouseDto> getMyRenthouses() {
+    @Autowired
+    private DtoMapper dtoMapper;
+
+    @Autowired
+    private ListingIndexService listingIndexService;
+
+    @Autowired
+    private SuggestionService suggestionService;
+
+    @Autowired
+    private RoomStatsService roomStatsService;
+
+    @Autowired
+    private EventStreamService eventStreamService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor taskExecutor;
+
+    @Value("${dashboard.fan-out.timeout-ms:3000}")
+    private long dashboardTimeoutMs;
+
+    @Transactional(readOnly = true)
+    public List<RenthouseDto> getMyRenthouses(FieldSelection fields) {
         User currentUser = getCurrentUser();
         List<Renthouse> renthouses = renthouseRepository.findByOwner_Id(currentUser.getId());
-        return renthouses.stream().map(this::convertToRenthouseDto).collect(Collectors.toList());
+        return fields.includes("floors")
+                ? dtoMapper.toOwnerRenthouseDtos(renthouses)
+                : dtoMapper.toRenthouseSummaryDtos(renthouses);
     }
 
+    @Transactional(readOnly = true)
     public RenthouseDto getRenthouseById(Long id) {
         User currentUser = getCurrentUser();
-        Renthouse renthouse = renthouseRepository.findById(id)
+        Renthouse renthouse = renthouseRepository.findDetailedById(id)
                 .orElseThrow(() -> new RuntimeException("Renthouse not found"));
 
         if (!renthouse.getOwner().getId().equals(currentUser.getId())) {
             throw new RuntimeException("Access denied");
         }
 
-        return convertToRenthouseDto(renthouse);
+        return dtoMapper.toOwnerRenthouseDto(renthouse);
     }
 
     @Transactional
@@ -73,7 +124,9 @@ public class OwnerService {
         renthouse.setOwner(currentUser);
 
         Renthouse savedRenthouse = renthouseRepository.save(renthouse);
-        return convertToRenthouseDto(savedRenthouse);
+        listingIndexService.renthouseSaved(savedRenthouse);
+        suggestionService.renthouseSaved(savedRenthouse);
+        return dtoMapper.toOwnerRenthouseDto(savedRenthouse);
     }
 
     @Transactional
@@ -98,7 +151,9 @@ public class OwnerService {
         renthouse.setQrCodeImage(request.getQrCodeImage());
 
         Renthouse savedRenthouse = renthouseRepository.save(renthouse);
-        return convertToRenthouseDto(savedRenthouse);
+        listingIndexService.renthouseSaved(savedRenthouse);
+        suggestionService.renthouseSaved(savedRenthouse);
+        return dtoMapper.toOwnerRenthouseDto(savedRenthouse);
     }
 
     @Transactional
@@ -112,6 +167,8 @@ public class OwnerService {
         }
 
         renthouseRepository.delete(renthouse);
+        listingIndexService.renthouseDeleted(id);
+        suggestionService.renthouseDeleted(id);
     }
 
     @Transactional
@@ -124,11 +181,12 @@ public class OwnerService {
             throw new RuntimeException("Access denied");
         }
 
-        // Auto-generate floor number if not provided
+        // Auto-generate floor number if not provided, otherwise move the counter past the explicit one
         Integer floorNumber = request.getFloorNumber();
         if (floorNumber == null) {
-            Integer maxFloorNumber = floorRepository.findMaxFloorNumberByRenthouseId(renthouseId);
-            floorNumber = (maxFloorNumber != null) ? maxFloorNumber + 1 : 1;
+            floorNumber = renthouseRepository.allocateFloorNumber(renthouseId);
+        } else {
+            renthouseRepository.reserveFloorNumber(renthouseId, floorNumber);
         }
 
         Floor floor = new Floor();
@@ -136,8 +194,14 @@ public class OwnerService {
         floor.setDescription(request.getDescription());
         floor.setRenthouse(renthouse);
 
-        Floor savedFloor = floorRepository.save(floor);
-        return convertToFloorDto(savedFloor);
+        Floor savedFloor;
+        try {
+            savedFloor = floorRepository.save(floor);
+        } catch (DataIntegrityViolationException e) {
+            // Explicit number already used in this renthouse (unique renthouse_id, floor_number)
+            throw new RuntimeException("Floor number already exists");
+        }
+        return dtoMapper.toFloorDto(savedFloor);
     }
 
     @Transactional
@@ -153,9 +217,9 @@ public class OwnerService {
         // Auto-generate room number if not provided
         String roomNumber = request.getRoomNumber();
         if (roomNumber == null || roomNumber.trim().isEmpty()) {
-            Integer maxRoomNumber = roomRepository.findMaxRoomNumberByFloorId(floorId);
-            int nextRoomNumber = (maxRoomNumber != null) ? maxRoomNumber + 1 : 1;
-            roomNumber = String.valueOf(nextRoomNumber);
+            roomNumber = String.valueOf(floorRepository.allocateRoomNumber(floorId));
+        } else {
+            reserveRoomNumber(floorId, roomNumber);
         }
 
         Room room = new Room();
@@ -166,8 +230,10 @@ public class OwnerService {
         room.setStatus(Room.RoomStatus.AVAILABLE);
         room.setFloor(floor);
 
-        Room savedRoom = roomRepository.save(room);
-        return convertToRoomDto(savedRoom);
+        Room savedRoom = saveRoom(room);
+        roomStatsService.roomChanged(savedRoom.getId());
+        listingIndexService.roomSaved(savedRoom);
+        return dtoMapper.toOwnerRoomDto(savedRoom);
     }
 
     @Transactional
@@ -180,37 +246,42 @@ public class OwnerService {
             throw new RuntimeException("Access denied");
         }
 
+        if (request.getRoomNumber() != null && !request.getRoomNumber().equals(room.getRoomNumber())) {
+            reserveRoomNumber(room.getFloor().getId(), request.getRoomNumber());
+        }
+
         room.setRoomNumber(request.getRoomNumber());
         room.setDescription(request.getDescription());
         room.setMonthlyRent(request.getMonthlyRent());
         room.setDeposit(request.getDeposit());
 
-        Room savedRoom = roomRepository.save(room);
-        return convertToRoomDto(savedRoom);
+        Room savedRoom = saveRoom(room);
+        roomStatsService.roomChanged(savedRoom.getId());
+        listingIndexService.roomSaved(savedRoom);
+        return dtoMapper.toOwnerRoomDto(savedRoom);
     }
 
-    public List<RoomDto> getMyRooms() {
-        User currentUser = getCurrentUser();
-        List<Room> rooms = roomRepository.findByOwnerId(currentUser.getId());
-        return rooms.stream().map(this::convertToRoomDto).collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<RoomSummary> getMyRooms() {
+        return roomRepository.findSummariesByOwnerId(getCurrentUser().getId());
     }
 
+    @Transactional(readOnly = true)
     public RoomDto getRoomById(Long roomId) {
         User currentUser = getCurrentUser();
-        Room room = roomRepository.findById(roomId)
+        Room room = roomRepository.findDetailedById(roomId)
                 .orElseThrow(() -> new RuntimeException("Room not found"));
         
         if (!room.getFloor().getRenthouse().getOwner().getId().equals(currentUser.getId())) {
             throw new RuntimeException("Access denied");
         }
         
-        return convertToRoomDtoWithDetails(room);
+        return dtoMapper.toRoomDetailsDto(room);
     }
 
-    public List<RoomDto> searchMyRooms(String roomNumber, String username) {
-        User currentUser = getCurrentUser();
-        List<Room> rooms = roomRepository.searchRoomsByOwner(roomNumber, username, currentUser.getId());
-        return rooms.stream().map(this::convertToRoomDto).collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<RoomSummary> searchMyRooms(String roomNumber, String username) {
+        return roomRepository.searchRoomsByOwner(roomNumber, username, getCurrentUser().getId());
     }
 
     @Transactional
@@ -239,16 +310,17 @@ public class OwnerService {
         payment.setUser(room.getRenter());
 
         Payment savedPayment = paymentRepository.save(payment);
-        return convertToPaymentDto(savedPayment);
+        publishPaymentEvent(ChangeEvent.Type.PAYMENT_CREATED, savedPayment, currentUser);
+        return dtoMapper.toPaymentDto(savedPayment);
     }
 
-    public List<PaymentDto> getMyPayments() {
-        User currentUser = getCurrentUser();
-        List<Payment> payments = paymentRepository.findByOwnerId(currentUser.getId());
-        return payments.stream().map(this::convertToPaymentDto).collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<PaymentSummary> getMyPayments() {
+        return paymentRepository.findSummariesByOwnerId(getCurrentUser().getId());
     }
 
-    public List<PaymentDto> getRoomPayments(Long roomId) {
+    @Transactional(readOnly = true)
+    public List<PaymentSummary> getRoomPayments(Long roomId) {
         User currentUser = getCurrentUser();
         Room room = roomRepository.findById(roomId)
                 .orElseThrow(() -> new RuntimeException("Room not found"));
@@ -257,8 +329,7 @@ public class OwnerService {
             throw new RuntimeException("Access denied");
         }
 
-        List<Payment> payments = paymentRepository.findByRoom_IdOrderByPaymentMonthDesc(roomId);
-        return payments.stream().map(this::convertToPaymentDto).collect(Collectors.toList());
+        return paymentRepository.findSummariesByRoomId(roomId);
     }
 
     @Transactional
@@ -277,7 +348,54 @@ public class OwnerService {
         payment.setPaidAt(LocalDateTime.now());
 
         Payment savedPayment = paymentRepository.save(payment);
-        return convertToPaymentDto(savedPayment);
+        publishPaymentEvent(ChangeEvent.Type.PAYMENT_STATUS_CHANGED, savedPayment, currentUser);
+        return dtoMapper.toPaymentDto(savedPayment);
+    }
+
+    @Transactional
+    public BulkPaymentStatusResult markPaymentsPaid(BulkPaymentStatusRequest request) {
+        User currentUser = getCurrentUser();
+        boolean byIds = request.getPaymentIds() != null && !request.getPaymentIds().isEmpty();
+        if (byIds == (request.getPaymentMonth() != null)) {
+            throw new RuntimeException("Give either paymentIds or paymentMonth");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> updated;
+        if (byIds) {
+            updated = paymentRepository.markPaidByIds(currentUser.getId(), new LinkedHashSet<>(request.getPaymentIds()), now);
+        } else {
+            updated = paymentRepository.markPaidByMonth(currentUser.getId(), request.getPaymentMonth(),
+                    request.getRenthouseId(), bulkStatuses(request.getStatuses()), now);
+        }
+
+        Map<Long, BulkPaymentStatusResult.Outcome> outcomes = new LinkedHashMap<>();
+        for (Object[] row : updated) {
+            outcomes.put(((Number) row[0]).longValue(), BulkPaymentStatusResult.Outcome.UPDATED);
+        }
+        publishPaymentsPaid(updated, currentUser, now);
+        if (!byIds) {
+            return toBulkResult(outcomes, new ArrayList<>(outcomes.keySet()));
+        }
+
+        // Only the ids the update skipped need a second query
+        List<Long> skipped = request.getPaymentIds().stream()
+                .distinct()
+                .filter(id -> !outcomes.containsKey(id))
+                .toList();
+        if (!skipped.isEmpty()) {
+            Map<Long, BulkPaymentStatusResult.Outcome> explained = new HashMap<>();
+            // Owned but not updated means it was already PAID
+            for (Object[] row : paymentRepository.findOwnerIdsByPaymentIds(skipped)) {
+                explained.put((Long) row[0], currentUser.getId().equals(row[1])
+                        ? BulkPaymentStatusResult.Outcome.ALREADY_PAID
+                        : BulkPaymentStatusResult.Outcome.ACCESS_DENIED);
+            }
+            for (Long id : skipped) {
+                outcomes.put(id, explained.getOrDefault(id, BulkPaymentStatusResult.Outcome.NOT_FOUND));
+            }
+        }
+        return toBulkResult(outcomes, request.getPaymentIds().stream().distinct().toList());
     }
 
     public IncomeReportDto getMonthlyIncome(int year, int month) {
@@ -298,22 +416,33 @@ public class OwnerService {
         return new IncomeReportDto(period, income, "YEARLY");
     }
 
+    @Transactional(readOnly = true)
     public List<TenantDto> getAllTenants() {
         User currentUser = getCurrentUser();
-        List<Room> rooms = roomRepository.findByOwnerId(currentUser.getId());
+        return getTenantsForOwner(currentUser.getId());
+    }
+
+    private List<TenantDto> getTenantsForOwner(Long ownerId) {
+        List<Room> rooms = roomRepository.findByOwnerId(ownerId);
         
-        System.out.println("Found " + rooms.size() + " rooms for owner " + currentUser.getId());
+        logger.debug("Found {} rooms for owner {}", rooms.size(), ownerId);
+
+        // Payments of every rented room in one query, newest month first within each room
+        List<Long> rentedRoomIds = rooms.stream()
+            .filter(room -> room.getRenter() != null)
+            .map(Room::getId)
+            .collect(Collectors.toList());
+        Map<Long, List<Payment>> paymentsByRoom = rentedRoomIds.isEmpty() ? Map.of() :
+            paymentRepository.findByRoom_IdInOrderByPaymentMonthDesc(rentedRoomIds).stream()
+                .collect(Collectors.groupingBy(payment -> payment.getRoom().getId()));
         
         List<TenantDto> result = rooms.stream()
             .filter(room -> room.getRenter() != null || room.getBookedAt() != null) // Include rooms that have been booked/rented
-            .peek(room -> System.out.println("Processing room: " + room.getId() + " - " + room.getRoomNumber() + 
-                  " (renter: " + (room.getRenter() != null ? room.getRenter().getUsername() : "null") + 
-                  ", bookedAt: " + room.getBookedAt() + ")"))
-            .map(this::convertToTenantDto)
+            .map(room -> convertToTenantDto(room, paymentsByRoom.getOrDefault(room.getId(), List.of())))
             .filter(tenant -> tenant != null) // Filter out any null results
             .collect(Collectors.toList());
             
-        System.out.println("Returning " + result.size() + " tenant records");
+        logger.debug("Returning {} tenant records", result.size());
         return result;
     }
 
@@ -328,16 +457,31 @@ public class OwnerService {
     }
 
     public Map<String, Object> getDashboardAnalytics() {
-        User currentUser = getCurrentUser();
+        Long ownerId = getCurrentUser().getId();
         int currentYear = LocalDate.now().getYear();
+        Set<String> unavailable = ConcurrentHashMap.newKeySet();
+        
+        // Independent parts run concurrently, each in its own read-only transaction, so the
+        // dashboard costs the slowest part rather than the sum; a part that misses the deadline
+        // falls back to an empty value and is listed under "unavailable"
+        CompletableFuture<Map<Integer, BigDecimal>> incomeByMonthFuture = fanOut("monthlyIncome",
+            () -> getMonthlyIncomeSeries(ownerId, currentYear), Map.of(), unavailable);
+        CompletableFuture<List<TenantDto>> tenantsFuture = fanOut("tenantStats",
+            () -> getTenantsForOwner(ownerId), List.of(), unavailable);
+        CompletableFuture<Long> totalPropertiesFuture = fanOut("totalProperties",
+            () -> renthouseRepository.countByOwner_Id(ownerId), 0L, unavailable);
+        CompletableFuture<Long> activeRoomsFuture = fanOut("activeRooms",
+            () -> roomRepository.countByOwnerIdAndStatusNot(ownerId, Room.RoomStatus.AVAILABLE), 0L, unavailable);
+        CompletableFuture<Long> pendingPaymentsFuture = fanOut("pendingPayments",
+            () -> paymentRepository.countByOwnerIdAndStatusNot(ownerId, Payment.PaymentStatus.PAID), 0L, unavailable);
         
         Map<String, Object> analytics = new HashMap<>();
         
         // Get monthly income data for bar chart
+        Map<Integer, BigDecimal> incomeByMonth = incomeByMonthFuture.join();
         List<Map<String, Object>> monthlyIncome = new ArrayList<>();
         for (int month = 1; month <= 12; month++) {
-            BigDecimal income = paymentRepository.getMonthlyIncomeByOwner(currentUser.getId(), currentYear, month);
-            if (income == null) income = BigDecimal.ZERO;
+            BigDecimal income = incomeByMonth.getOrDefault(month, BigDecimal.ZERO);
             
             Map<String, Object> monthData = new HashMap<>();
             monthData.put("month", month);
@@ -347,7 +491,7 @@ public class OwnerService {
         }
         
         // Get tenant statistics for donut chart
-        List<TenantDto> tenants = getAllTenants();
+        List<TenantDto> tenants = tenantsFuture.join();
         Map<String, Object> tenantStats = new HashMap<>();
         tenantStats.put("totalTenants", tenants.size());
         
@@ -380,12 +524,10 @@ public class OwnerService {
         tenantStats.put("distribution", tenantDistribution);
         
         // Get summary statistics
-        long totalProperties = renthouseRepository.countByOwner_Id(currentUser.getId());
-        long activeRooms = getActiveRoomsCount();
-        long pendingPayments = getPendingPaymentsCount();
-        BigDecimal totalYearIncome = monthlyIncome.stream()
-            .mapToDouble(m -> (Double) m.get("income"))
-            .mapToObj(BigDecimal::valueOf)
+        long totalProperties = totalPropertiesFuture.join();
+        long activeRooms = activeRoomsFuture.join();
+        long pendingPayments = pendingPaymentsFuture.join();
+        BigDecimal totalYearIncome = incomeByMonth.values().stream()
             .reduce(BigDecimal.ZERO, BigDecimal::add);
         
         analytics.put("monthlyIncome", monthlyIncome);
@@ -396,199 +538,119 @@ public class OwnerService {
             "pendingPayments", pendingPayments,
             "totalYearIncome", totalYearIncome.doubleValue()
         ));
+        analytics.put("partial", !unavailable.isEmpty());
+        analytics.put("unavailable", new ArrayList<>(unavailable));
         
         return analytics;
     }
 
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return (User) authentication.getPrincipal();
+    private Map<Integer, BigDecimal> getMonthlyIncomeSeries(Long ownerId, int year) {
+        Map<Integer, BigDecimal> incomeByMonth = new HashMap<>();
+        for (Object[] row : paymentRepository.getMonthlyIncomeSeriesByOwner(ownerId, year)) {
+            incomeByMonth.put(((Number) row[0]).intValue(), row[1] != null ? (BigDecimal) row[1] : BigDecimal.ZERO);
+        }
+        return incomeByMonth;
     }
 
-    private RenthouseDto convertToRenthouseDto(Renthouse renthouse) {
-        RenthouseDto dto = new RenthouseDto();
-        dto.setId(renthouse.getId());
-        dto.setName(renthouse.getName());
-        dto.setAddress(renthouse.getAddress());
-        dto.setDescription(renthouse.getDescription());
-        dto.setLatitude(renthouse.getLatitude());
-        dto.setLongitude(renthouse.getLongitude());
-        dto.setBaseRent(renthouse.getBaseRent());
-        dto.setWaterFee(renthouse.getWaterFee());
-        dto.setElectricityFee(renthouse.getElectricityFee());
-        dto.setImageUrl(renthouse.getImageUrl());
-        dto.setQrCodeImage(renthouse.getQrCodeImage());
-        dto.setCreatedAt(renthouse.getCreatedAt());
-        dto.setUpdatedAt(renthouse.getUpdatedAt());
-        dto.setOwnerId(renthouse.getOwner().getId());
-        dto.setOwnerName(renthouse.getOwner().getFullName());
-        
-        // Set default amenities (empty list for now)
-        dto.setAmenities(new ArrayList<>());
-        
-        // Convert floors and rooms
-        User currentUser = getCurrentUser();
-        List<FloorDto> floorDtos = renthouse.getFloors().stream()
-                .map(floor -> convertToFloorDto(floor, currentUser.getId()))
-                .collect(Collectors.toList());
-        dto.setFloors(floorDtos);
-        
-        return dto;
-    }
-
-    private FloorDto convertToFloorDto(Floor floor) {
-        FloorDto dto = new FloorDto();
-        dto.setId(floor.getId());
-        dto.setFloorNumber(floor.getFloorNumber());
-        dto.setDescription(floor.getDescription());
-        dto.setCreatedAt(floor.getCreatedAt());
-        dto.setUpdatedAt(floor.getUpdatedAt());
-        dto.setRenthouseId(floor.getRenthouse().getId());
-        dto.setRenthouseName(floor.getRenthouse().getName());
-        return dto;
-    }
-
-    private FloorDto convertToFloorDto(Floor floor, Long currentUserId) {
-        FloorDto dto = new FloorDto();
-        dto.setId(floor.getId());
-        dto.setFloorNumber(floor.getFloorNumber());
-        dto.setDescription(floor.getDescription());
-        dto.setCreatedAt(floor.getCreatedAt());
-        dto.setUpdatedAt(floor.getUpdatedAt());
-        dto.setRenthouseId(floor.getRenthouse().getId());
-        dto.setRenthouseName(floor.getRenthouse().getName());
-        
-        // Convert rooms
-        List<RoomDto> roomDtos = floor.getRooms().stream()
-                .map(room -> convertToRoomDto(room, currentUserId))
-                .collect(Collectors.toList());
-        dto.setRooms(roomDtos);
-        
-        return dto;
-    }
-
-    private RoomDto convertToRoomDto(Room room) {
-        RoomDto dto = new RoomDto();
-        dto.setId(room.getId());
-        dto.setRoomNumber(room.getRoomNumber());
-        dto.setDescription(room.getDescription());
-        dto.setMonthlyRent(room.getMonthlyRent());
-        dto.setDeposit(room.getDeposit());
-        dto.setStatus(room.getStatus());
-        dto.setBookedAt(room.getBookedAt());
-        dto.setCreatedAt(room.getCreatedAt());
-        dto.setUpdatedAt(room.getUpdatedAt());
-        dto.setFloorId(room.getFloor().getId());
-        dto.setFloorNumber(room.getFloor().getFloorNumber());
-        dto.setRenthouseId(room.getFloor().getRenthouse().getId());
-        dto.setRenthouseName(room.getFloor().getRenthouse().getName());
-        
-        if (room.getRenter() != null) {
-            dto.setRenterId(room.getRenter().getId());
-            dto.setRenterName(room.getRenter().getFullName());
-            dto.setRenterFullName(room.getRenter().getFullName());
-            dto.setRenterUsername(room.getRenter().getUsername());
-            dto.setRenterEmail(room.getRenter().getEmail());
-            dto.setRenterPhone(room.getRenter().getPhoneNumber());
-            dto.setMoveInDate(room.getBookedAt());
+    private <T> CompletableFuture<T> fanOut(String part, Supplier<T> query, T fallback, Set<String> unavailable) {
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readOnlyTransaction.setTimeout((int) Math.max(1, (dashboardTimeoutMs + 999) / 1000));
+        return CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status -> query.get()), taskExecutor)
+            .orTimeout(dashboardTimeoutMs, TimeUnit.MILLISECONDS)
+            .exceptionally(e -> {
+                logger.warn("Dashboard part {} unavailable", part, e);
+                unavailable.add(part);
+                return fallback;
+            });
+    }
+
+    // Flushed so an explicit number already used on the floor (unique floor_id, room_number) fails here
+    private Room saveRoom(Room room) {
+        try {
+            return roomRepository.saveAndFlush(room);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Room number already exists");
         }
-        
-        // Set isOccupied based on room status
-        dto.setIsOccupied(room.getStatus() != Room.RoomStatus.AVAILABLE);
-        
-        return dto;
-    }
-
-    private RoomDto convertToRoomDto(Room room, Long currentUserId) {
-        RoomDto dto = new RoomDto();
-        dto.setId(room.getId());
-        dto.setRoomNumber(room.getRoomNumber());
-        dto.setDescription(room.getDescription());
-        dto.setMonthlyRent(room.getMonthlyRent());
-        dto.setDeposit(room.getDeposit());
-        dto.setStatus(room.getStatus());
-        dto.setBookedAt(room.getBookedAt());
-        dto.setCreatedAt(room.getCreatedAt());
-        dto.setUpdatedAt(room.getUpdatedAt());
-        dto.setFloorId(room.getFloor().getId());
-        dto.setFloorNumber(room.getFloor().getFloorNumber());
-        dto.setRenthouseId(room.getFloor().getRenthouse().getId());
-        dto.setRenthouseName(room.getFloor().getRenthouse().getName());
-        
-        if (room.getRenter() != null) {
-            dto.setRenterId(room.getRenter().getId());
-            dto.setRenterName(room.getRenter().getFullName());
-            dto.setRenterFullName(room.getRenter().getFullName());
-            dto.setRenterUsername(room.getRenter().getUsername());
-            dto.setRenterEmail(room.getRenter().getEmail());
-            dto.setRenterPhone(room.getRenter().getPhoneNumber());
-            dto.setMoveInDate(room.getBookedAt());
+    }
+
+    // Keeps the floor's counter ahead of manually chosen numeric room numbers so auto-numbering never collides
+    private void reserveRoomNumber(Long floorId, String roomNumber) {
+        String trimmed = roomNumber.trim();
+        if (trimmed.matches("\\d{1,9}")) {
+            floorRepository.reserveRoomNumber(floorId, Integer.parseInt(trimmed));
         }
-        
-        // Set isOccupied based on room status
-        dto.setIsOccupied(room.getStatus() != Room.RoomStatus.AVAILABLE);
-        
-        return dto;
-    }
-
-    private RoomDto convertToRoomDtoWithDetails(Room room) {
-        RoomDto dto = new RoomDto();
-        dto.setId(room.getId());
-        dto.setRoomNumber(room.getRoomNumber());
-        dto.setDescription(room.getDescription());
-        dto.setMonthlyRent(room.getMonthlyRent());
-        dto.setDeposit(room.getDeposit());
-        dto.setStatus(room.getStatus());
-        dto.setBookedAt(room.getBookedAt());
-        dto.setCreatedAt(room.getCreatedAt());
-        dto.setUpdatedAt(room.getUpdatedAt());
-        dto.setFloorId(room.getFloor().getId());
-        dto.setFloorNumber(room.getFloor().getFloorNumber());
-        dto.setRenthouseId(room.getFloor().getRenthouse().getId());
-        dto.setRenthouseName(room.getFloor().getRenthouse().getName());
-        dto.setRenthouseAddress(room.getFloor().getRenthouse().getAddress());
-        
-        // Set detailed renter information if available
-        if (room.getRenter() != null) {
-            dto.setRenterId(room.getRenter().getId());
-            dto.setRenterName(room.getRenter().getFullName());
-            dto.setRenterFullName(room.getRenter().getFullName());
-            dto.setRenterUsername(room.getRenter().getUsername());
-            dto.setRenterEmail(room.getRenter().getEmail());
-            dto.setRenterPhone(room.getRenter().getPhoneNumber());
-            dto.setMoveInDate(room.getBookedAt());
-            // TODO: Add lease end date if available in the Room entity
+    }
+
+    private static List<String> bulkStatuses(List<String> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            return List.of(Payment.PaymentStatus.PENDING.name(), Payment.PaymentStatus.OVERDUE.name());
         }
-        
-        // Set isOccupied based on room status
-        dto.setIsOccupied(room.getStatus() != Room.RoomStatus.AVAILABLE);
-        
-        return dto;
-    }
-
-    private PaymentDto convertToPaymentDto(Payment payment) {
-        PaymentDto dto = new PaymentDto();
-        dto.setId(payment.getId());
-        dto.setRoomId(payment.getRoom().getId());
-        dto.setRoomNumber(payment.getRoom().getRoomNumber());
-        dto.setUserId(payment.getUser().getId());
-        dto.setUserName(payment.getUser().getFullName());
-        dto.setPaymentMonth(payment.getPaymentMonth());
-        dto.setRoomFee(payment.getRoomFee());
-        dto.setElectricityFee(payment.getElectricityFee());
-        dto.setWaterFee(payment.getWaterFee());
-        dto.setOtherCharges(payment.getOtherCharges());
-        dto.setOtherChargesDescription(payment.getOtherChargesDescription());
-        dto.setTotalAmount(payment.getTotalAmount());
-        dto.setStatus(payment.getStatus() != null ? payment.getStatus().name() : null);
-        dto.setQrCodeData(payment.getQrCodeData());
-        dto.setPaidAt(payment.getPaidAt());
-        dto.setCreatedAt(payment.getCreatedAt());
-        dto.setUpdatedAt(payment.getUpdatedAt());
-        return dto;
-    }
-
-    private TenantDto convertToTenantDto(Room room) {
+        List<String> parsed = new ArrayList<>();
+        for (String status : statuses) {
+            Payment.PaymentStatus value;
+            try {
+                value = Payment.PaymentStatus.valueOf(status.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Unknown payment status: " + status);
+            }
+            if (value == Payment.PaymentStatus.PAID) {
+                throw new RuntimeException("PAID payments cannot be marked paid again");
+            }
+            parsed.add(value.name());
+        }
+        return parsed;
+    }
+
+    private static BulkPaymentStatusResult toBulkResult(Map<Long, BulkPaymentStatusResult.Outcome> outcomes,
+                                                        List<Long> order) {
+        List<BulkPaymentStatusResult.Item> items = order.stream()
+                .map(id -> new BulkPaymentStatusResult.Item(id, outcomes.get(id)))
+                .toList();
+        int updated = (int) items.stream()
+                .filter(item -> item.outcome() == BulkPaymentStatusResult.Outcome.UPDATED)
+                .count();
+        return new BulkPaymentStatusResult(updated, items);
+    }
+
+    // The tenant the payment is for and the owner who changed it
+    private void publishPaymentEvent(ChangeEvent.Type type, Payment payment, User owner) {
+        ChangeEvent event = new ChangeEvent(type, payment.getId(), payment.getRoom().getId(),
+                payment.getStatus().name(), LocalDateTime.now());
+        eventStreamService.publish(event, payment.getUser().getId(), owner.getId());
+    }
+
+    // One event per recipient rather than per payment: a batch can update hundreds of payments, which
+    // would overflow the owner's stream (events.stream.max-pending) and disconnect it
+    private void publishPaymentsPaid(List<Object[]> updated, User owner, LocalDateTime now) {
+        if (updated.isEmpty()) {
+            return;
+        }
+        Map<Long, List<Object[]>> rowsByTenant = updated.stream()
+                .collect(Collectors.groupingBy(row -> ((Number) row[1]).longValue(), LinkedHashMap::new, Collectors.toList()));
+        rowsByTenant.forEach((tenantId, rows) -> {
+            Object[] first = rows.get(0);
+            ChangeEvent event = rows.size() == 1
+                    ? new ChangeEvent(ChangeEvent.Type.PAYMENT_STATUS_CHANGED, ((Number) first[0]).longValue(),
+                            ((Number) first[2]).longValue(), Payment.PaymentStatus.PAID.name(), now)
+                    : ChangeEvent.paymentsPaid(paymentIds(rows), now);
+            eventStreamService.publish(event, tenantId);
+        });
+        eventStreamService.publish(ChangeEvent.paymentsPaid(paymentIds(updated), now), owner.getId());
+    }
+
+    private static List<Long> paymentIds(List<Object[]> rows) {
+        return rows.stream()
+                .map(row -> ((Number) row[0]).longValue())
+                .toList();
+    }
+
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return (User) authentication.getPrincipal();
+    }
+
+    private TenantDto convertToTenantDto(Room room, List<Payment> payments) {
         User renter = room.getRenter();
         
         // If no current renter but room has been booked, we need to handle this case
@@ -631,7 +693,6 @@ public class OwnerService {
         LocalDateTime nextPaymentDate = null;
 
         // Get the latest payment for this room
-        List<Payment> payments = paymentRepository.findByRoom_IdOrderByPaymentMonthDesc(room.getId());
         if (!payments.isEmpty()) {
             Payment latestPayment = payments.get(0);
             lastPaymentDate = latestPayment.getCreatedAt();
@@ -645,10 +706,10 @@ public class OwnerService {
             // Calculate outstanding balance
             outstandingBalance = room.getMonthlyRent().subtract(totalPaid);
             
-            // Determine payment status
+            // Determine payment status (OVERDUE is persisted by PaymentOverdueService)
             if (latestPayment.getStatus() == Payment.PaymentStatus.PAID) {
                 paymentStatus = "PAID";
-            } else if (latestPayment.getCreatedAt().isBefore(LocalDateTime.now().minusDays(30))) {
+            } else if (latestPayment.getStatus() == Payment.PaymentStatus.OVERDUE) {
                 paymentStatus = "OVERDUE";
             } else {
                 paymentStatus = "PENDING";
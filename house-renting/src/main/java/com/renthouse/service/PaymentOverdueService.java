@@ -0,0 +1,55 @@
+package com.renthouse.service;
+
+import com.renthouse.repository.PaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+@Service
+public class PaymentOverdueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentOverdueService.class);
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Value("${payment.overdue.grace-days:30}")
+    private int graceDays;
+
+    @Value("${payment.overdue.batch-size:500}")
+    private int batchSize;
+
+    @Value("${payment.overdue.max-batches:200}")
+    private int maxBatches;
+
+    @Scheduled(cron = "${payment.overdue.cron:0 */15 * * * *}")
+    public void sweepOverduePayments() {
+        int total = markOverduePayments();
+        if (total > 0) {
+            logger.info("Marked {} payments as OVERDUE", total);
+        }
+    }
+
+    /**
+     * Marks PENDING payments older than the grace period as OVERDUE, one chunk per transaction so
+     * row locks stay short. Stops after max-batches chunks; the next run picks up the rest.
+     */
+    public int markOverduePayments() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minusDays(graceDays);
+        int total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            int updated = paymentRepository.markOverdueBatch(cutoff, now, batchSize);
+            total += updated;
+            if (updated < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+}
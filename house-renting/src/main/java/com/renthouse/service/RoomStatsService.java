@@ -0,0 +1,43 @@
+package com.renthouse.service;
+
+import com.renthouse.repository.RenthouseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the per-renthouse room stats (total and available rooms, min and max available rent) that
+ * the room-level search filters read. Owner and tenant room writes refresh their renthouse in the
+ * same transaction. The reconcile run at startup and every room-stats.reconcile-interval-ms fills in
+ * rows written outside the services (sample data, datagen, manual SQL).
+ */
+@Service
+public class RoomStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomStatsService.class);
+
+    @Autowired
+    private RenthouseRepository renthouseRepository;
+
+    /** Call after a room is created or its rent or status changes, inside the writing transaction. */
+    public void roomChanged(Long roomId) {
+        Long renthouseId = renthouseRepository.lockRenthouseOfRoom(roomId);
+        if (renthouseId != null) {
+            renthouseRepository.refreshRoomStats(renthouseId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${room-stats.reconcile-interval-ms:3600000}",
+            initialDelayString = "${room-stats.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        int corrected = renthouseRepository.reconcileRoomStats();
+        if (corrected > 0) {
+            logger.info("Room stats corrected for {} renthouses", corrected);
+        }
+    }
+}
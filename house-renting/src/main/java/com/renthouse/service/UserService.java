@@ -1,11 +1,23 @@
 package com.renthouse.service;
 
-import com.renthouse.dto.FloorDto;
-import com.renthouse.dto.PaymentDto;
+import com.renthouse.dto.ChangeEvent;
+import com.renthouse.dto.ListingSearchResult;
+import com.renthouse.dto.MultiGetResult;
+import com.renthouse.dto.PaymentSummary;
 import com.renthouse.dto.RenthouseDto;
 import com.renthouse.dto.RoomDto;
+import com.renthouse.dto.RoomSummary;
+import com.renthouse.dto.Suggestion;
 import com.renthouse.entity.*;
+import com.renthouse.events.EventStreamService;
+import com.renthouse.fields.FieldSelection;
+import com.renthouse.mapper.DtoMapper;
 import com.renthouse.repository.*;
+import com.renthouse.search.ListingIndexService;
+import com.renthouse.search.ListingQuery;
+import com.renthouse.search.RenthouseSort;
+import com.renthouse.search.SearchQueryParser;
+import com.renthouse.search.SuggestionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -18,12 +30,23 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Read methods run in read-only transactions: with open-in-view off, the DTOs are assembled before the
+ * connection goes back to the pool, and Hibernate skips flushing and dirty-check snapshots for them.
+ */
 @Service
 public class UserService {
 
+    private static final int MAX_MULTI_GET_IDS = 100;
+
     @Autowired
     private RenthouseRepository renthouseRepository;
 
@@ -39,43 +62,95 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
-    public List<RenthouseDto> getNearbyRenthouses(Double latitude, Double longitude, Double radiusKm) {
+    @Autowired
+    private DtoMapper dtoMapper;
+
+    @Autowired
+    private ListingIndexService listingIndexService;
+
+    @Autowired
+    private SuggestionService suggestionService;
+
+    @Autowired
+    private RoomStatsService roomStatsService;
+
+    @Autowired
+    private EventStreamService eventStreamService;
+
+    @Transactional(readOnly = true)
+    public List<RenthouseDto> getNearbyRenthouses(Double latitude, Double longitude, Double radiusKm,
+                                                  FieldSelection fields) {
         List<Renthouse> renthouses = renthouseRepository.findNearbyRenthouses(latitude, longitude, radiusKm);
-        return renthouses.stream().map(this::convertToRenthouseDto).collect(Collectors.toList());
+        return toTenantRenthouseDtos(renthouses, fields);
     }
 
-    public List<RenthouseDto> getFeaturedRenthouses() {
+    @Transactional(readOnly = true)
+    public List<RenthouseDto> getFeaturedRenthouses(FieldSelection fields) {
         // Get the most recent 6 renthouses with available rooms
         Pageable pageable = PageRequest.of(0, 6);
         List<Renthouse> renthouses = renthouseRepository.findFeaturedRenthouses(pageable);
-        return renthouses.stream().map(this::convertToRenthouseDto).collect(Collectors.toList());
+        return toTenantRenthouseDtos(renthouses, fields);
     }
 
-    public List<RenthouseDto> searchRenthouses(String name, String location, BigDecimal minPrice, BigDecimal maxPrice) {
-        if (name == null && location == null && minPrice == null && maxPrice == null) {
-            return renthouseRepository.findAllRenthouses().stream()
-                    .map(this::convertToRenthouseDto)
-                    .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<RenthouseDto> searchRenthouses(String name, String location, BigDecimal minPrice, BigDecimal maxPrice,
+                                               boolean availableOnly, BigDecimal minRoomRent, BigDecimal maxRoomRent,
+                                               String sort, FieldSelection fields) {
+        RenthouseSort order = sort == null ? RenthouseSort.RELEVANCE : parseSort(sort);
+        if (name == null && location == null && minPrice == null && maxPrice == null && !availableOnly
+                && minRoomRent == null && maxRoomRent == null && order == RenthouseSort.RELEVANCE) {
+            return toTenantRenthouseDtos(renthouseRepository.findAllRenthouses(), fields);
+        }
+        // name covers the name and description, location the address
+        SearchQueryParser.ParsedQuery nameQuery = SearchQueryParser.parse(name, "AC");
+        SearchQueryParser.ParsedQuery locationQuery = SearchQueryParser.parse(location, "B");
+        List<Renthouse> renthouses = renthouseRepository.searchRenthouses(
+                nameQuery != null ? nameQuery.tsQuery() : null,
+                nameQuery != null ? nameQuery.fuzzyText() : null,
+                nameQuery != null ? nameQuery.exclusions() : null,
+                locationQuery != null ? locationQuery.tsQuery() : null,
+                locationQuery != null ? locationQuery.fuzzyText() : null,
+                locationQuery != null ? locationQuery.exclusions() : null,
+                minPrice, maxPrice, availableOnly, minRoomRent, maxRoomRent, order.name());
+        return toTenantRenthouseDtos(renthouses, fields);
+    }
+
+    private static RenthouseSort parseSort(String sort) {
+        try {
+            return RenthouseSort.valueOf(sort.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Unknown sort: " + sort);
         }
-        List<Renthouse> renthouses = renthouseRepository.searchRenthouses(name, location, minPrice, maxPrice);
-        return renthouses.stream().map(this::convertToRenthouseDto).collect(Collectors.toList());
     }
 
+    // Answered from the in-memory listing index, without touching the database
+    public ListingSearchResult searchListings(String text, BigDecimal minPrice, BigDecimal maxPrice,
+                                              BigDecimal minRoomRent, BigDecimal maxRoomRent,
+                                              boolean availableOnly, int limit) {
+        return listingIndexService.search(new ListingQuery(text, minPrice, maxPrice, minRoomRent, maxRoomRent,
+                availableOnly, Math.min(Math.max(limit, 1), 100)));
+    }
+
+    // Typeahead, answered from the in-memory suggestion trie
+    public List<Suggestion> suggestRenthouses(String query, int limit) {
+        return suggestionService.suggest(query, Math.min(Math.max(limit, 1), 20));
+    }
+
+    @Transactional(readOnly = true)
     public RenthouseDto getRenthouseDetails(Long renthouseId) {
         System.out.println("Getting renthouse details for ID: " + renthouseId);
-        Renthouse renthouse = renthouseRepository.findById(renthouseId)
+        Renthouse renthouse = renthouseRepository.findDetailedById(renthouseId)
                 .orElseThrow(() -> new RuntimeException("Renthouse not found"));
         System.out.println("Found renthouse: " + renthouse.getName());
         System.out.println("Number of floors: " + renthouse.getFloors().size());
-        RenthouseDto dto = convertToRenthouseDto(renthouse);
+        RenthouseDto dto = dtoMapper.toTenantRenthouseDto(renthouse, favoriteRoomIds());
         System.out.println("Converted to DTO with " + dto.getFloors().size() + " floors");
         return dto;
     }
 
-    public List<RoomDto> getAvailableRooms(Long renthouseId) {
-        List<Room> rooms = roomRepository.findAvailableRoomsByRenthouse(renthouseId);
-        User currentUser = getCurrentUser();
-        return rooms.stream().map(room -> convertToRoomDto(room, currentUser.getId())).collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<RoomSummary> getAvailableRooms(Long renthouseId) {
+        return roomRepository.findAvailableRoomsByRenthouse(renthouseId, getCurrentUser().getId());
     }
 
     @Transactional
@@ -93,7 +168,14 @@ public class UserService {
         room.setBookedAt(LocalDateTime.now());
 
         Room savedRoom = roomRepository.save(room);
-        return convertToRoomDto(savedRoom, currentUser.getId());
+        roomStatsService.roomChanged(savedRoom.getId());
+        listingIndexService.roomSaved(savedRoom);
+        if (eventStreamService.hasSubscribers()) {
+            ChangeEvent event = new ChangeEvent(ChangeEvent.Type.ROOM_BOOKED, null, savedRoom.getId(),
+                    savedRoom.getStatus().name(), savedRoom.getBookedAt());
+            eventStreamService.publish(event, currentUser.getId(), roomRepository.findOwnerIdByRoomId(savedRoom.getId()));
+        }
+        return dtoMapper.toTenantRoomDto(savedRoom, favoriteRoomIds());
     }
 
     @Transactional
@@ -165,82 +247,62 @@ public class UserService {
         }
     }
 
+    @Transactional(readOnly = true)
     public boolean isRenthouseInFavorites(Long renthouseId) {
         User currentUser = getCurrentUser();
-        Renthouse renthouse = renthouseRepository.findById(renthouseId)
-                .orElseThrow(() -> new RuntimeException("Renthouse not found"));
+        if (!renthouseRepository.existsById(renthouseId)) {
+            throw new RuntimeException("Renthouse not found");
+        }
 
         // Check if any room from this renthouse is in favorites
-        for (Floor floor : renthouse.getFloors()) {
-            for (Room room : floor.getRooms()) {
-                if (favoriteRepository.existsByUser_IdAndRoom_Id(currentUser.getId(), room.getId())) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return favoriteRepository.existsByUser_IdAndRoom_Floor_Renthouse_Id(currentUser.getId(), renthouseId);
     }
 
+    @Transactional(readOnly = true)
     public Optional<RoomDto> getCurrentBooking() {
         User currentUser = getCurrentUser();
         List<Room.RoomStatus> activeStatuses = List.of(Room.RoomStatus.BOOKED, Room.RoomStatus.OCCUPIED);
         
         return roomRepository.findFirstByRenterIdAndStatusIn(currentUser.getId(), activeStatuses)
-                .map(room -> convertToRoomDto(room, currentUser.getId()));
+                .map(room -> dtoMapper.toTenantRoomDto(room, favoriteRoomIds()));
     }
 
-    public List<RoomDto> getAllMyBookings() {
-        User currentUser = getCurrentUser();
-        return roomRepository.findByRenterId(currentUser.getId()).stream()
-                .map(room -> convertToRoomDto(room, currentUser.getId()))
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<RoomSummary> getAllMyBookings() {
+        return roomRepository.findSummariesByRenterId(getCurrentUser().getId());
     }
 
-    public List<RoomDto> getFavoriteRooms() {
-        User currentUser = getCurrentUser();
-        List<Favorite> favorites = favoriteRepository.findByUser_Id(currentUser.getId());
-        return favorites.stream()
-                .map(favorite -> convertToRoomDto(favorite.getRoom(), currentUser.getId()))
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<RoomSummary> getFavoriteRooms() {
+        return favoriteRepository.findFavoriteRoomSummaries(getCurrentUser().getId());
     }
 
-    public List<PaymentDto> getMyPayments() {
-        User currentUser = getCurrentUser();
-        List<Payment> payments = paymentRepository.findByUser_Id(currentUser.getId());
-        return payments.stream().map(this::convertToPaymentDto).collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<PaymentSummary> getMyPayments() {
+        return paymentRepository.findSummariesByUserId(getCurrentUser().getId());
     }
 
-    public List<PaymentDto> getMyPendingPayments() {
+    @Transactional(readOnly = true)
+    public List<PaymentSummary> getMyPendingPayments() {
         User currentUser = getCurrentUser();
-        System.out.println("DEBUG: Getting pending payments for user ID: " + currentUser.getId());
-        
         // Get only PENDING and OVERDUE payments, excluding CANCELLED and PAID
         List<Payment.PaymentStatus> pendingStatuses = List.of(Payment.PaymentStatus.PENDING, Payment.PaymentStatus.OVERDUE);
-        List<Payment> pendingPayments = paymentRepository.findByUser_IdAndStatusInOrderByPaymentMonthAsc(currentUser.getId(), pendingStatuses);
-        System.out.println("DEBUG: Found " + pendingPayments.size() + " payments with PENDING/OVERDUE status");
-        
-        for (Payment payment : pendingPayments) {
-            System.out.println("DEBUG: Payment Entity - ID=" + payment.getId() + 
-                             ", Status=" + payment.getStatus() + 
-                             ", UserID=" + payment.getUser().getId() + 
-                             ", RoomID=" + (payment.getRoom() != null ? payment.getRoom().getId() : "null"));
-        }
-        
-        return pendingPayments.stream().map(this::convertToPaymentDto).collect(Collectors.toList());
+        return paymentRepository.findSummariesByUserIdAndStatusIn(currentUser.getId(), pendingStatuses);
     }
 
-    public List<PaymentDto> getMyPaymentsByStatus(String status) {
+    @Transactional(readOnly = true)
+    public List<PaymentSummary> getMyPaymentsByStatus(String status) {
         User currentUser = getCurrentUser();
         try {
             Payment.PaymentStatus paymentStatus = Payment.PaymentStatus.valueOf(status.toUpperCase());
-            List<Payment> payments = paymentRepository.findByUser_IdAndStatusOrderByPaymentMonthDesc(currentUser.getId(), paymentStatus);
-            return payments.stream().map(this::convertToPaymentDto).collect(Collectors.toList());
+            return paymentRepository.findSummariesByUserIdAndStatus(currentUser.getId(), paymentStatus);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Invalid payment status: " + status);
         }
     }
 
-    public List<PaymentDto> getPaymentsForRoom(Long roomId) {
+    @Transactional(readOnly = true)
+    public List<PaymentSummary> getPaymentsForRoom(Long roomId) {
         User currentUser = getCurrentUser();
         Room room = roomRepository.findById(roomId)
                 .orElseThrow(() -> new RuntimeException("Room not found"));
@@ -249,10 +311,10 @@ public class UserService {
             throw new RuntimeException("Access denied to this room's payments");
         }
 
-        List<Payment> payments = paymentRepository.findByRoom_Id(roomId);
-        return payments.stream().map(this::convertToPaymentDto).collect(Collectors.toList());
+        return paymentRepository.findSummariesByRoomId(roomId);
     }
 
+    @Transactional(readOnly = true)
     public String getPaymentQrCode(Long paymentId) {
         User currentUser = getCurrentUser();
         Payment payment = paymentRepository.findById(paymentId)
@@ -265,126 +327,93 @@ public class UserService {
         return payment.getQrCodeData();
     }
 
+    @Transactional(readOnly = true)
     public RoomDto getRoomById(Long roomId) {
         User currentUser = getCurrentUser();
-        Room room = roomRepository.findById(roomId)
+        Room room = roomRepository.findDetailedById(roomId)
                 .orElseThrow(() -> new RuntimeException("Room not found"));
 
         if (room.getRenter() == null || !room.getRenter().getId().equals(currentUser.getId())) {
             throw new RuntimeException("Access denied to this room's details");
         }
 
-        return convertToRoomDto(room, currentUser.getId());
+        return dtoMapper.toTenantRoomDto(room, favoriteRoomIds());
     }
 
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return (User) authentication.getPrincipal();
+    /** Rooms by id, in request order; like getRoomById, only the room's renter may see it. */
+    @Transactional(readOnly = true)
+    public MultiGetResult<RoomDto> getRoomsByIds(List<Long> ids, FieldSelection fields) {
+        List<Long> requested = multiGetIds(ids);
+        Long currentUserId = getCurrentUser().getId();
+        Map<Long, Room> found = roomRepository.findDetailedByIdIn(requested).stream()
+                .collect(Collectors.toMap(Room::getId, Function.identity()));
+
+        List<Room> visible = new ArrayList<>();
+        List<Long> notFound = new ArrayList<>();
+        List<Long> accessDenied = new ArrayList<>();
+        for (Long id : requested) {
+            Room room = found.get(id);
+            if (room == null) {
+                notFound.add(id);
+            } else if (room.getRenter() == null || !room.getRenter().getId().equals(currentUserId)) {
+                accessDenied.add(id);
+            } else {
+                visible.add(room);
+            }
+        }
+        List<RoomDto> items = visible.isEmpty() ? List.of() : dtoMapper.toTenantRoomDtos(visible,
+                fields.includes("isFavorite") ? favoriteRoomIds() : Set.of());
+        return new MultiGetResult<>(items, notFound, accessDenied);
     }
 
-    private RenthouseDto convertToRenthouseDto(Renthouse renthouse) {
-        RenthouseDto dto = new RenthouseDto();
-        dto.setId(renthouse.getId());
-        dto.setName(renthouse.getName());
-        dto.setAddress(renthouse.getAddress());
-        dto.setDescription(renthouse.getDescription());
-        dto.setLatitude(renthouse.getLatitude());
-        dto.setLongitude(renthouse.getLongitude());
-        dto.setBaseRent(renthouse.getBaseRent());
-        dto.setWaterFee(renthouse.getWaterFee());
-        dto.setElectricityFee(renthouse.getElectricityFee());
-        dto.setImageUrl(renthouse.getImageUrl());
-        dto.setQrCodeImage(renthouse.getQrCodeImage());
-        dto.setCreatedAt(renthouse.getCreatedAt());
-        dto.setUpdatedAt(renthouse.getUpdatedAt());
-        dto.setOwnerId(renthouse.getOwner().getId());
-        dto.setOwnerName(renthouse.getOwner().getFullName());
-        
-        // Set default amenities (empty list for now)
-        dto.setAmenities(new ArrayList<>());
-        
-        // Convert floors and rooms
-        User currentUser = getCurrentUser();
-        List<FloorDto> floorDtos = renthouse.getFloors().stream()
-                .map(floor -> convertToFloorDto(floor, currentUser.getId()))
-                .collect(Collectors.toList());
-        dto.setFloors(floorDtos);
-        
-        return dto;
-    }
-    
-    private FloorDto convertToFloorDto(Floor floor, Long currentUserId) {
-        FloorDto dto = new FloorDto();
-        dto.setId(floor.getId());
-        dto.setFloorNumber(floor.getFloorNumber());
-        dto.setDescription(floor.getDescription());
-        dto.setCreatedAt(floor.getCreatedAt());
-        dto.setUpdatedAt(floor.getUpdatedAt());
-        dto.setRenthouseId(floor.getRenthouse().getId());
-        dto.setRenthouseName(floor.getRenthouse().getName());
-        
-        // Convert rooms
-        List<RoomDto> roomDtos = floor.getRooms().stream()
-                .map(room -> convertToRoomDto(room, currentUserId))
-                .collect(Collectors.toList());
-        dto.setRooms(roomDtos);
-        
-        return dto;
+    /** Renthouses with their floor and room trees (when floors is selected), in request order. */
+    @Transactional(readOnly = true)
+    public MultiGetResult<RenthouseDto> getRenthousesByIds(List<Long> ids, FieldSelection fields) {
+        List<Long> requested = multiGetIds(ids);
+        Map<Long, Renthouse> found = renthouseRepository.findDetailedByIdIn(requested).stream()
+                .collect(Collectors.toMap(Renthouse::getId, Function.identity()));
+
+        List<Renthouse> ordered = new ArrayList<>();
+        List<Long> notFound = new ArrayList<>();
+        for (Long id : requested) {
+            Renthouse renthouse = found.get(id);
+            if (renthouse == null) {
+                notFound.add(id);
+            } else {
+                ordered.add(renthouse);
+            }
+        }
+        List<RenthouseDto> items = ordered.isEmpty() ? List.of() : toTenantRenthouseDtos(ordered, fields);
+        return new MultiGetResult<>(items, notFound, List.of());
     }
 
-    private RoomDto convertToRoomDto(Room room, Long currentUserId) {
-        RoomDto dto = new RoomDto();
-        dto.setId(room.getId());
-        dto.setRoomNumber(room.getRoomNumber());
-        dto.setDescription(room.getDescription());
-        dto.setMonthlyRent(room.getMonthlyRent());
-        dto.setDeposit(room.getDeposit());
-        dto.setStatus(room.getStatus());
-        dto.setBookedAt(room.getBookedAt());
-        dto.setCreatedAt(room.getCreatedAt());
-        dto.setUpdatedAt(room.getUpdatedAt());
-        dto.setFloorId(room.getFloor().getId());
-        dto.setFloorNumber(room.getFloor().getFloorNumber());
-        dto.setRenthouseId(room.getFloor().getRenthouse().getId());
-        dto.setRenthouseName(room.getFloor().getRenthouse().getName());
-        
-        if (room.getRenter() != null) {
-            dto.setRenterId(room.getRenter().getId());
-            dto.setRenterName(room.getRenter().getFullName());
-            dto.setRenterFullName(room.getRenter().getFullName());
-        }
-        
-        // Set isOccupied based on room status
-        dto.setIsOccupied(room.getStatus() != Room.RoomStatus.AVAILABLE);
-        
-        dto.setIsFavorite(favoriteRepository.existsByUser_IdAndRoom_Id(currentUserId, room.getId()));
-        return dto;
+    // The floor and room tree, and the favorites marked in it, are only loaded when floors is selected
+    private List<RenthouseDto> toTenantRenthouseDtos(List<Renthouse> renthouses, FieldSelection fields) {
+        return fields.includes("floors")
+                ? dtoMapper.toTenantRenthouseDtos(renthouses, favoriteRoomIds())
+                : dtoMapper.toRenthouseSummaryDtos(renthouses);
     }
 
-    private PaymentDto convertToPaymentDto(Payment payment) {
-        PaymentDto dto = new PaymentDto();
-        dto.setId(payment.getId());
-        dto.setType(payment.getType());
-        dto.setPaymentMonth(payment.getPaymentMonth());
-        dto.setRoomFee(payment.getRoomFee());
-        dto.setElectricityFee(payment.getElectricityFee());
-        dto.setWaterFee(payment.getWaterFee());
-        dto.setOtherCharges(payment.getOtherCharges());
-        dto.setOtherChargesDescription(payment.getOtherChargesDescription());
-        dto.setTotalAmount(payment.getTotalAmount());
-        dto.setStatus(payment.getStatus() != null ? payment.getStatus().name() : null);
-        dto.setQrCodeData(payment.getQrCodeData());
-        dto.setPaidAt(payment.getPaidAt());
-        dto.setCreatedAt(payment.getCreatedAt());
-        dto.setUpdatedAt(payment.getUpdatedAt());
-        if (payment.getRoom() != null) {
-            dto.setRoomId(payment.getRoom().getId());
-            dto.setRoomNumber(payment.getRoom().getRoomNumber());
+    private static List<Long> multiGetIds(List<Long> ids) {
+        List<Long> requested = ids == null ? List.of() : ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (requested.isEmpty()) {
+            throw new RuntimeException("At least one id is required");
         }
-        if (payment.getUser() != null) {
-            dto.setUserId(payment.getUser().getId());
-            dto.setUserName(payment.getUser().getFullName());
+        if (requested.size() > MAX_MULTI_GET_IDS) {
+            throw new RuntimeException("At most " + MAX_MULTI_GET_IDS + " ids per request");
         }
-        return dto;
+        return requested;
+    }
+
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return (User) authentication.getPrincipal();
+    }
+
+    private Set<Long> favoriteRoomIds() {
+        return favoriteRepository.findRoomIdsByUserId(getCurrentUser().getId());
     }
 }
\ No newline at end of file
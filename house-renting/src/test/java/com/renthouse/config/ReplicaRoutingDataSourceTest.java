@@ -0,0 +1,125 @@
+package com.renthouse.config;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes through two embedded Postgres instances and tells them apart by port. Neither is a real
+ * standby, so the lag query reports zero and the replica counts as usable until it is stopped.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private EmbeddedPostgres primary;
+    private EmbeddedPostgres replica;
+    private ReplicaLagMonitor lagMonitor;
+    private ReadYourWritesTracker readYourWritesTracker;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        primary = EmbeddedPostgres.start();
+        replica = EmbeddedPostgres.start();
+        lagMonitor = new ReplicaLagMonitor(replica.getPostgresDatabase(), 2000);
+        lagMonitor.check();
+
+        readYourWritesTracker = new ReadYourWritesTracker(60_000);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(lagMonitor, readYourWritesTracker);
+        routing.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.PRIMARY, primary.getPostgresDatabase(),
+                ReplicaRoutingDataSource.REPLICA, replica.getPostgresDatabase()));
+        routing.setDefaultTargetDataSource(primary.getPostgresDatabase());
+        routing.afterPropertiesSet();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        SecurityContextHolder.clearContext();
+        primary.close();
+        replica.close();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        assertThat(lagMonitor.isUsable()).isTrue();
+        assertThat(portOf(readOnly)).isEqualTo(replica.getPort());
+    }
+
+    @Test
+    void writesUseThePrimary() {
+        assertThat(portOf(readWrite)).isEqualTo(primary.getPort());
+    }
+
+    @Test
+    void readsStayOnThePrimaryAfterTheUsersOwnWrite() {
+        signIn("tenant");
+        assertThat(portOf(readOnly)).isEqualTo(replica.getPort());
+
+        readWrite.executeWithoutResult(status -> jdbcTemplate.execute("CREATE TABLE written (id int)"));
+        assertThat(portOf(readOnly)).isEqualTo(primary.getPort());
+
+        signIn("other");
+        assertThat(portOf(readOnly)).isEqualTo(replica.getPort());
+    }
+
+    @Test
+    void readsOfANewlyRegisteredUserStayOnThePrimary() {
+        // Registration writes before anyone is signed in, so AuthService marks the new user itself
+        readWrite.executeWithoutResult(status -> jdbcTemplate.execute("CREATE TABLE registered (id int)"));
+        signIn("newcomer");
+        assertThat(portOf(readOnly)).isEqualTo(replica.getPort());
+
+        readYourWritesTracker.recordWrite("newcomer");
+        assertThat(portOf(readOnly)).isEqualTo(primary.getPort());
+    }
+
+    @Test
+    void rolledBackWritesDoNotMakeReadsSticky() {
+        signIn("tenant");
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.execute("CREATE TABLE discarded (id int)");
+            status.setRollbackOnly();
+        });
+        assertThat(portOf(readOnly)).isEqualTo(replica.getPort());
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenTheReplicaIsDown() throws Exception {
+        replica.close();
+        lagMonitor.check();
+
+        assertThat(lagMonitor.isUsable()).isFalse();
+        assertThat(portOf(readOnly)).isEqualTo(primary.getPort());
+    }
+
+    private int portOf(TransactionTemplate transactionTemplate) {
+        return transactionTemplate.execute(status ->
+                Integer.parseInt(jdbcTemplate.queryForObject("SELECT current_setting('port')", String.class)));
+    }
+
+    private void signIn(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+}
@@ -0,0 +1,45 @@
+package com.renthouse.fields;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FieldSelectionTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void missingOrBlankSelectsEverything() {
+        assertThat(FieldSelection.parse(null).isAll()).isTrue();
+        assertThat(FieldSelection.parse(" ").isAll()).isTrue();
+        assertThat(FieldSelection.parse(" , ").isAll()).isTrue();
+        assertThat(FieldSelection.parse(null).includes("floors")).isTrue();
+    }
+
+    @Test
+    void keepsOnlyTheSelectedPaths() throws Exception {
+        JsonNode node = objectMapper.readTree("""
+                [{"id": 1, "name": "A", "address": "x",
+                  "floors": [{"id": 10, "floorNumber": 1, "rooms": [{"id": 100, "monthlyRent": 90, "status": "AVAILABLE"}]}]}]
+                """);
+        FieldSelection fields = FieldSelection.parse("id, floors.rooms.monthlyRent,floors.floorNumber");
+
+        fields.apply(node);
+
+        assertThat(fields.includes("floors")).isTrue();
+        assertThat(fields.includes("address")).isFalse();
+        assertThat(node.toString())
+                .isEqualTo("[{\"id\":1,\"floors\":[{\"floorNumber\":1,\"rooms\":[{\"monthlyRent\":90}]}]}]");
+    }
+
+    @Test
+    void aWholePropertyWinsOverItsSubPaths() throws Exception {
+        JsonNode node = objectMapper.readTree("{\"id\": 1, \"owner\": {\"id\": 2, \"name\": \"B\"}}");
+
+        FieldSelection.parse("owner.id,owner").apply(node);
+
+        assertThat(node.toString()).isEqualTo("{\"owner\":{\"id\":2,\"name\":\"B\"}}");
+    }
+}
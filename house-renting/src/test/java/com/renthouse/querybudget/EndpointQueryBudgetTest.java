@@ -0,0 +1,801 @@
+package com.renthouse.querybudget;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.renthouse.entity.Payment;
+import com.renthouse.entity.Renthouse;
+import com.renthouse.entity.Room;
+import com.renthouse.idempotency.IdempotencyFilter;
+import com.renthouse.repository.*;
+import com.renthouse.search.ListingIndexService;
+import com.renthouse.search.SuggestionService;
+import com.renthouse.security.JwtUtils;
+import com.renthouse.service.AccountAvailabilityService;
+import com.renthouse.service.RoomStatsService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Calls every controller endpoint against a seeded embedded Postgres and fails when an endpoint
+ * issues more SQL statements (or takes longer) than its budget. Statement counts come from the
+ * db.statements counter maintained by the JDBC proxy in MetricsConfig, so they include the
+ * per-request user lookup done by JwtAuthenticationFilter.
+ *
+ * Budgets are the measured counts for this dataset. When a change legitimately lowers a count,
+ * lower the budget with it; an N+1 regression grows with the dataset and breaks the budget.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // The search column and indexes come from the deploy-time migration, applied after Hibernate's DDL
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=file:search-migration.sql",
+        "spring.jpa.defer-datasource-initialization=true",
+        "spring.jpa.show-sql=false",
+        "payment.overdue.cron=-",
+        "query-budget.mode=WARN",
+        "file.upload.path=target/test-uploads",
+        // Below the owner's payment count for a month, so a per-payment bulk publish would overflow the stream
+        "events.stream.max-pending=10",
+        "logging.level.com.renthouse=INFO",
+        "logging.level.org.springframework.security=INFO"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class EndpointQueryBudgetTest {
+
+    // Reads are measured on a warmed-up second call; writes run once, so they get more room
+    private static final long READ_MILLIS = 1000;
+    private static final long WRITE_MILLIS = 1000;
+    private static final long BCRYPT_MILLIS = 2000;
+
+    private static final Map<String, String> REPORT = new LinkedHashMap<>();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RenthouseRepository renthouseRepository;
+
+    @Autowired
+    private FloorRepository floorRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+
+    @Autowired
+    private ListingIndexService listingIndexService;
+
+    @Autowired
+    private SuggestionService suggestionService;
+
+    @Autowired
+    private RoomStatsService roomStatsService;
+
+    @Autowired
+    private AccountAvailabilityService accountAvailabilityService;
+
+    private QueryBudgetDataset dataset;
+    private String ownerToken;
+    private String tenantToken;
+
+    @BeforeAll
+    void seed() {
+        dataset = QueryBudgetDataset.seed(userRepository, renthouseRepository, floorRepository,
+                roomRepository, paymentRepository, favoriteRepository);
+        // The dataset is written through repositories, so the in-memory indexes, the room stats and the
+        // account availability filter have to pick it up themselves
+        listingIndexService.rebuild();
+        suggestionService.rebuild();
+        roomStatsService.reconcile();
+        accountAvailabilityService.rebuild();
+        ownerToken = jwtUtils.generateToken(dataset.owner);
+        tenantToken = jwtUtils.generateToken(dataset.tenant);
+    }
+
+    // ---- UserController --------------------------------------------------------------------
+
+    @Test
+    @Order(10)
+    void featuredRenthouses() throws Exception {
+        read(6, tenant(get("/api/user/renthouses/featured")));
+    }
+
+    @Test
+    @Order(11)
+    void nearbyRenthouses() throws Exception {
+        read(7, tenant(get("/api/user/renthouses/nearby")
+                .param("latitude", "11.55").param("longitude", "104.92").param("radiusKm", "5")));
+    }
+
+    @Test
+    @Order(12)
+    void searchRenthouses() throws Exception {
+        read(8, tenant(get("/api/user/renthouses/search").param("name", "Budget House 1")));
+
+        // RELEVANCE puts the exact name first, even though the other renthouses match the same words
+        Long house21 = dataset.renthouses.get(2 * QueryBudgetDataset.RENTHOUSES_PER_OWNER + 1).getId();
+        assertThat(renthouseIds(tenant(get("/api/user/renthouses/search").param("name", "Budget House 2-1"))))
+                .hasSize(dataset.renthouses.size())
+                .first().isEqualTo(house21);
+        // Misspelled words fall back to trigram similarity
+        assertThat(renthouseIds(tenant(get("/api/user/renthouses/search").param("name", "Budgte House"))))
+                .containsExactlyInAnyOrderElementsOf(dataset.renthouses.stream().map(Renthouse::getId).toList());
+        assertThat(renthouseIds(tenant(get("/api/user/renthouses/search").param("name", "Budget Huose 2-1"))))
+                .first().isEqualTo(house21);
+    }
+
+    @Test
+    @Order(13)
+    void searchAllRenthouses() throws Exception {
+        read(7, tenant(get("/api/user/renthouses/search")));
+    }
+
+    @Test
+    @Order(14)
+    void renthouseDetails() throws Exception {
+        read(6, tenant(get("/api/user/renthouses/{id}", dataset.ownerRenthouse.getId())));
+    }
+
+    @Test
+    @Order(15)
+    void userRoomById() throws Exception {
+        read(3, tenant(get("/api/user/rooms/{id}", dataset.tenantRoom.getId())));
+    }
+
+    @Test
+    @Order(16)
+    void userRoomPayments() throws Exception {
+        read(3, tenant(get("/api/user/rooms/{id}/payments", dataset.tenantRoom.getId())));
+    }
+
+    @Test
+    @Order(17)
+    void availableRooms() throws Exception {
+        read(2, tenant(get("/api/user/renthouses/{id}/rooms/available", dataset.ownerRenthouse.getId())));
+    }
+
+    @Test
+    @Order(18)
+    void renthouseFavoriteCheck() throws Exception {
+        read(3, tenant(get("/api/user/renthouses/{id}/favorites/check", dataset.ownerRenthouse.getId())));
+    }
+
+    @Test
+    @Order(19)
+    void currentBooking() throws Exception {
+        read(3, tenant(get("/api/user/booking/current")));
+    }
+
+    @Test
+    @Order(20)
+    void allBookings() throws Exception {
+        read(2, tenant(get("/api/user/bookings/all")));
+    }
+
+    @Test
+    @Order(21)
+    void favoriteRooms() throws Exception {
+        read(2, tenant(get("/api/user/favorites")));
+    }
+
+    @Test
+    @Order(22)
+    void userPayments() throws Exception {
+        read(2, tenant(get("/api/user/payments")));
+    }
+
+    @Test
+    @Order(23)
+    void pendingPayments() throws Exception {
+        read(2, tenant(get("/api/user/payments/pending")));
+    }
+
+    @Test
+    @Order(24)
+    void paymentsByStatus() throws Exception {
+        read(2, tenant(get("/api/user/payments/status/{status}", "paid")));
+    }
+
+    @Test
+    @Order(25)
+    void paymentQrCode() throws Exception {
+        read(2, tenant(get("/api/user/payments/{id}/qr-code", dataset.tenantPayment.getId())));
+    }
+
+    @Test
+    @Order(26)
+    void listingSearch() throws Exception {
+        // Served from memory: only the JWT filter's user lookup reaches the database
+        read(1, tenant(get("/api/user/renthouses/listings").param("q", "budget house").param("availableOnly", "true")));
+    }
+
+    @Test
+    @Order(27)
+    void suggest() throws Exception {
+        read(1, tenant(get("/api/user/renthouses/suggest").param("q", "budg")));
+    }
+
+    @Test
+    @Order(28)
+    void searchRenthousesByRoomRent() throws Exception {
+        MockHttpServletRequestBuilder request = tenant(get("/api/user/renthouses/search")
+                .param("availableOnly", "true").param("maxRoomRent", "150").param("sort", "RENT_ASC"));
+        read(8, request);
+        // Every renthouse has one available room per floor, all at 140, so the rent ties and ids decide
+        assertThat(renthouseIds(request)).containsExactlyElementsOf(dataset.renthouses.stream()
+                .map(Renthouse::getId)
+                .sorted()
+                .toList());
+        // Rented rooms (125 to 135) do not count towards the room rent filters
+        assertThat(renthouseIds(tenant(get("/api/user/renthouses/search").param("maxRoomRent", "135")))).isEmpty();
+        assertThat(renthouseIds(tenant(get("/api/user/renthouses/search")
+                .param("minRoomRent", "141").param("maxRoomRent", "500")))).isEmpty();
+    }
+
+    @Test
+    @Order(29)
+    void roomsByIds() throws Exception {
+        List<Long> rented = dataset.rooms.stream()
+                .filter(room -> room.getRenter() == dataset.tenant)
+                .map(Room::getId)
+                .toList();
+        Long notRented = dataset.spareRoomsOfOwner().get(0).getId();
+        List<Long> ids = new ArrayList<>(rented.reversed());
+        ids.addAll(List.of(notRented, -1L));
+
+        // Same statements as a single room: one query for all rooms, one for the favorites
+        MockHttpServletRequestBuilder request = tenant(get("/api/user/rooms").param("ids", join(ids)));
+        read(3, request);
+        JsonNode data = objectMapper.readTree(mockMvc.perform(request).andReturn().getResponse().getContentAsString())
+                .get("data");
+        assertThat(data.get("items").findValuesAsText("id")).containsExactlyElementsOf(
+                rented.reversed().stream().map(String::valueOf).toList());
+        assertThat(data.get("accessDenied").get(0).asLong()).isEqualTo(notRented);
+        assertThat(data.get("notFound").get(0).asLong()).isEqualTo(-1L);
+    }
+
+    @Test
+    @Order(30)
+    void renthousesByIds() throws Exception {
+        List<Long> ids = dataset.renthouses.stream()
+                .map(Renthouse::getId)
+                .limit(6)
+                .toList()
+                .reversed();
+        // One query per level of the tree, however many renthouses are asked for
+        read(6, tenant(get("/api/user/renthouses").param("ids", join(ids))));
+    }
+
+    @Test
+    @Order(31)
+    void featuredRenthousesWithFields() throws Exception {
+        // Without floors neither the room tree nor the favorites are loaded: only the renthouses
+        MockHttpServletRequestBuilder request = tenant(get("/api/user/renthouses/featured")
+                .param("fields", "id,name,baseRent"));
+        read(2, request);
+        JsonNode data = objectMapper.readTree(mockMvc.perform(request).andReturn().getResponse().getContentAsString())
+                .get("data");
+        assertThat(data).isNotEmpty();
+        data.forEach(renthouse -> assertThat(renthouse.fieldNames()).toIterable()
+                .containsExactlyInAnyOrder("id", "name", "baseRent"));
+    }
+
+    @Test
+    @Order(32)
+    void renthousesByIdsWithNestedFields() throws Exception {
+        List<Long> ids = dataset.renthouses.stream()
+                .map(Renthouse::getId)
+                .limit(6)
+                .toList();
+        MockHttpServletRequestBuilder request = tenant(get("/api/user/renthouses").param("ids", join(ids))
+                .param("fields", "id,floors.floorNumber,floors.rooms.monthlyRent"));
+        read(6, request);
+        JsonNode data = objectMapper.readTree(mockMvc.perform(request).andReturn().getResponse().getContentAsString())
+                .get("data");
+        JsonNode floor = data.get("items").get(0).get("floors").get(0);
+        assertThat(data.get("items").get(0).fieldNames()).toIterable().containsExactlyInAnyOrder("id", "floors");
+        assertThat(floor.fieldNames()).toIterable().containsExactlyInAnyOrder("floorNumber", "rooms");
+        assertThat(floor.get("rooms").get(0).fieldNames()).toIterable().containsExactly("monthlyRent");
+        assertThat(data.get("notFound")).isEmpty();
+    }
+
+    @Test
+    @Order(33)
+    void roomsByIdsWithFields() throws Exception {
+        List<Long> rented = dataset.rooms.stream()
+                .filter(room -> room.getRenter() == dataset.tenant)
+                .map(Room::getId)
+                .toList();
+        // isFavorite not selected, so no favorites query
+        read(2, tenant(get("/api/user/rooms").param("ids", join(rented)).param("fields", "id,roomNumber,monthlyRent")));
+    }
+
+    @Test
+    @Order(34)
+    void favoriteRoomsWithFields() throws Exception {
+        // The summaries come from one projection query, so fields only trims the response
+        MockHttpServletRequestBuilder request = tenant(get("/api/user/favorites").param("fields", "id,roomNumber"));
+        read(2, request);
+        JsonNode data = objectMapper.readTree(mockMvc.perform(request).andReturn().getResponse().getContentAsString())
+                .get("data");
+        assertThat(data).isNotEmpty();
+        data.forEach(room -> assertThat(room.fieldNames()).toIterable()
+                .containsExactlyInAnyOrder("id", "roomNumber"));
+    }
+
+    @Test
+    @Order(35)
+    void searchRenthousesWithExclusions() throws Exception {
+        // Addresses are 100, 101 or 102 Budget Street; excluding 101 drops the second renthouse of every owner
+        List<Long> not101 = dataset.renthouses.stream()
+                .filter(renthouse -> !renthouse.getAddress().startsWith("101 "))
+                .map(Renthouse::getId)
+                .toList();
+        MockHttpServletRequestBuilder request = tenant(get("/api/user/renthouses/search")
+                .param("location", "budget street -101"));
+        read(8, request);
+        assertThat(renthouseIds(request)).containsExactlyInAnyOrderElementsOf(not101);
+        // The exclusion also applies to rows found by the trigram fallback
+        assertThat(renthouseIds(tenant(get("/api/user/renthouses/search").param("location", "budget stret -101"))))
+                .containsExactlyInAnyOrderElementsOf(not101);
+    }
+
+    // ---- OwnerController -------------------------------------------------------------------
+
+    @Test
+    @Order(40)
+    void myRenthouses() throws Exception {
+        read(5, owner(get("/api/owner/renthouses")));
+    }
+
+    @Test
+    @Order(41)
+    void ownerRenthouseById() throws Exception {
+        read(5, owner(get("/api/owner/renthouses/{id}", dataset.ownerRenthouse.getId())));
+    }
+
+    @Test
+    @Order(42)
+    void myRooms() throws Exception {
+        read(2, owner(get("/api/owner/rooms")));
+    }
+
+    @Test
+    @Order(43)
+    void ownerRoomById() throws Exception {
+        read(2, owner(get("/api/owner/rooms/{id}", dataset.tenantRoom.getId())));
+    }
+
+    @Test
+    @Order(44)
+    void searchMyRooms() throws Exception {
+        read(2, owner(get("/api/owner/rooms/search").param("roomNumber", "10")));
+    }
+
+    @Test
+    @Order(45)
+    void ownerPayments() throws Exception {
+        read(2, owner(get("/api/owner/payments")));
+    }
+
+    @Test
+    @Order(46)
+    void roomPayments() throws Exception {
+        read(5, owner(get("/api/owner/rooms/{id}/payments", dataset.tenantRoom.getId())));
+    }
+
+    @Test
+    @Order(47)
+    void monthlyIncome() throws Exception {
+        LocalDate month = LocalDate.now().minusMonths(3);
+        read(2, owner(get("/api/owner/income/monthly")
+                .param("year", String.valueOf(month.getYear()))
+                .param("month", String.valueOf(month.getMonthValue()))));
+    }
+
+    @Test
+    @Order(48)
+    void yearlyIncome() throws Exception {
+        read(2, owner(get("/api/owner/income/yearly").param("year", String.valueOf(LocalDate.now().getYear()))));
+    }
+
+    @Test
+    @Order(49)
+    void tenants() throws Exception {
+        read(3, owner(get("/api/owner/tenants")));
+    }
+
+    @Test
+    @Order(50)
+    void activeRoomsCount() throws Exception {
+        read(2, owner(get("/api/owner/stats/active-rooms")));
+    }
+
+    @Test
+    @Order(51)
+    void pendingPaymentsCount() throws Exception {
+        read(2, owner(get("/api/owner/stats/pending-payments")));
+    }
+
+    @Test
+    @Order(52)
+    void dashboardAnalytics() throws Exception {
+        read(7, owner(get("/api/owner/analytics")));
+    }
+
+    @Test
+    @Order(53)
+    void myRenthousesWithFields() throws Exception {
+        read(2, owner(get("/api/owner/renthouses").param("fields", "id,name,availableRooms")));
+    }
+
+    // ---- FileUploadController, AuthController and EventStreamController ---------------------
+
+    @Test
+    @Order(60)
+    void uploadAndFetchImage() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "budget.png", "image/png", new byte[]{1, 2, 3, 4});
+        String body = write(0, multipart("/api/upload/image").file(file));
+        String url = objectMapper.readTree(body).get("data").asText();
+
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        measure("GET /api/upload/files/{filename}", 0, READ_MILLIS, get(url), false);
+    }
+
+    @Test
+    @Order(61)
+    void login() throws Exception {
+        Map<String, String> request = Map.of("username", dataset.tenant.getUsername(),
+                "password", QueryBudgetDataset.PASSWORD);
+        measure("POST /api/auth/login", 1, BCRYPT_MILLIS, post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)), true);
+    }
+
+    @Test
+    @Order(62)
+    void register() throws Exception {
+        Map<String, String> request = Map.of("username", "budget_newcomer", "email", "budget_newcomer@example.com",
+                "password", QueryBudgetDataset.PASSWORD, "fullName", "Budget Newcomer", "role", "USER");
+        measure("POST /api/auth/register", 1, BCRYPT_MILLIS, post("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)), true);
+    }
+
+    @Test
+    @Order(63)
+    void availability() throws Exception {
+        // A name nobody has is answered by the Bloom filter alone
+        read(0, get("/api/auth/availability").param("username", "budget_free_name").param("email", "free@example.com"));
+        read(1, get("/api/auth/availability").param("username", dataset.tenant.getUsername()));
+    }
+
+    @Test
+    @Order(64)
+    void eventStream() throws Exception {
+        // Only the JWT user lookup; the stream stays open for the rest of the run
+        measure("GET /api/events", 1, READ_MILLIS, owner(get("/api/events")), false);
+    }
+
+    // ---- Mutations (run last, they change the dataset) ---------------------------------------
+
+    @Test
+    @Order(80)
+    void addAndRemoveFavorite() throws Exception {
+        Room room = unfavoritedSpareRoom();
+        write(4, tenant(post("/api/user/favorites/{roomId}", room.getId())));
+        write(3, tenant(delete("/api/user/favorites/{roomId}", room.getId())));
+    }
+
+    @Test
+    @Order(81)
+    void addAndRemoveRenthouseFavorite() throws Exception {
+        Long renthouseId = dataset.unfavoritedRenthouseOfOwner().getId();
+        write(6, tenant(post("/api/user/renthouses/{id}/favorites", renthouseId)));
+        write(17, tenant(delete("/api/user/renthouses/{id}/favorites", renthouseId)));
+    }
+
+    @Test
+    @Order(82)
+    void bookRoom() throws Exception {
+        // Room writes also lock the renthouse and refresh its room stats (RoomStatsService): two statements.
+        // The Idempotency-Key adds the claim and the stored response; the retry is answered from memory,
+        // leaving only the JWT user lookup. With the stream from eventStream open, the booking also looks
+        // up the owner to send them the ROOM_BOOKED event.
+        MockHttpServletRequestBuilder request = tenant(post("/api/user/rooms/{id}/book", dataset.spareRoomsOfOwner().get(0).getId())
+                .header(IdempotencyFilter.HEADER, "budget-book"));
+        write(11, request);
+        write(1, request);
+    }
+
+    @Test
+    @Order(83)
+    void createUpdateDeleteRenthouse() throws Exception {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("name", "Budget Extension");
+        request.put("address", "1 New Street");
+        request.put("description", "Created by the budget test");
+        request.put("latitude", 11.6);
+        request.put("longitude", 104.9);
+        request.put("baseRent", 200);
+        request.put("waterFee", "5.00");
+        request.put("electricityFee", "0.25");
+        String body = write(2, owner(post("/api/owner/renthouses")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request))));
+        long id = objectMapper.readTree(body).get("data").get("id").asLong();
+
+        request.put("name", "Budget Extension (renamed)");
+        write(5, owner(put("/api/owner/renthouses/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request))));
+        write(4, owner(delete("/api/owner/renthouses/{id}", id)));
+    }
+
+    @Test
+    @Order(84)
+    void createFloorAndRoom() throws Exception {
+        String floorBody = write(4, owner(post("/api/owner/renthouses/{id}/floors", dataset.ownerRenthouse.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"description\":\"Roof floor\"}")));
+        long floorId = objectMapper.readTree(floorBody).get("data").get("id").asLong();
+
+        String roomBody = write(7, owner(post("/api/owner/floors/{id}/rooms", floorId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"description\":\"Roof room\",\"monthlyRent\":150,\"deposit\":300}")));
+        long roomId = objectMapper.readTree(roomBody).get("data").get("id").asLong();
+
+        write(7, owner(put("/api/owner/rooms/{id}", roomId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"roomNumber\":\"R1\",\"description\":\"Roof room\",\"monthlyRent\":160,\"deposit\":300}")));
+    }
+
+    @Test
+    @Order(85)
+    void createPaymentAndMarkPaid() throws Exception {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("roomId", dataset.tenantRoom.getId());
+        request.put("paymentMonth", LocalDate.now().plusMonths(1).withDayOfMonth(1).toString());
+        request.put("roomFee", 125);
+        request.put("electricityFee", 10);
+        request.put("waterFee", 5);
+        request.put("otherCharges", 0);
+        MockHttpServletRequestBuilder create = owner(post("/api/owner/payments")
+                .header(IdempotencyFilter.HEADER, "budget-payment")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+        String body = write(8, create);
+        assertThat(write(1, create)).isEqualTo(body);
+        long paymentId = objectMapper.readTree(body).get("data").get("id").asLong();
+
+        write(7, owner(put("/api/owner/payments/{id}/status", paymentId)));
+    }
+
+    @Test
+    @Order(86)
+    void markPaymentsPaidInBulk() throws Exception {
+        LocalDate lastMonth = LocalDate.now().withDayOfMonth(1);
+        LocalDate monthBefore = lastMonth.minusMonths(1);
+        List<Long> pending = dataset.payments.stream()
+                .filter(payment -> payment.getRoom().getFloor().getRenthouse().getOwner() == dataset.owner)
+                .filter(payment -> payment.getPaymentMonth().equals(monthBefore))
+                .map(Payment::getId)
+                .toList();
+        Long paid = dataset.payments.stream()
+                .filter(payment -> payment.getRoom().getFloor().getRenthouse().getOwner() == dataset.owner)
+                .filter(payment -> payment.getStatus() == Payment.PaymentStatus.PAID)
+                .findFirst()
+                .orElseThrow()
+                .getId();
+        Long foreign = dataset.payments.stream()
+                .filter(payment -> payment.getRoom().getFloor().getRenthouse().getOwner() != dataset.owner)
+                .findFirst()
+                .orElseThrow()
+                .getId();
+        List<Long> ids = new ArrayList<>(pending);
+        ids.addAll(List.of(paid, foreign, -1L));
+        assertThat(pending).hasSizeGreaterThan(10);
+        double connections = meterRegistry.get("events.stream.connections").gauge().value();
+        double dropped = meterRegistry.get("events.stream.dropped").counter().count();
+        assertThat(connections).isPositive();
+
+        // One UPDATE for the whole batch, plus one lookup explaining the ids it skipped
+        String body = write(3, owner(put("/api/owner/payments/status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("paymentIds", ids)))));
+        JsonNode data = objectMapper.readTree(body).get("data");
+        assertThat(data.get("updated").asInt()).isEqualTo(pending.size());
+        assertThat(data.get("results").findValuesAsText("outcome").subList(pending.size(), ids.size()))
+                .containsExactly("ALREADY_PAID", "ACCESS_DENIED", "NOT_FOUND");
+
+        Map<String, Object> byMonth = Map.of("paymentMonth", lastMonth.toString(),
+                "renthouseId", dataset.ownerRenthouse.getId());
+        body = write(2, owner(put("/api/owner/payments/status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(byMonth))));
+        assertThat(objectMapper.readTree(body).get("data").get("updated").asInt()).isPositive();
+
+        // Each recipient got one event, so the owner's stream from eventStream is still open
+        assertThat(meterRegistry.get("events.stream.dropped").counter().count()).isEqualTo(dropped);
+        assertThat(meterRegistry.get("events.stream.connections").gauge().value()).isEqualTo(connections);
+    }
+
+    @Test
+    @Order(87)
+    void roomStatsFollowRentChangesAndBookings() throws Exception {
+        Renthouse cheaper = dataset.renthouses.get(1);
+        Renthouse cheapest = dataset.renthouses.get(2);
+        Room cheapestRoom = availableRoomOf(cheapest);
+        setRent(availableRoomOf(cheaper), 110);
+        setRent(cheapestRoom, 100);
+
+        MockHttpServletRequestBuilder rentAscending = tenant(get("/api/user/renthouses/search")
+                .param("availableOnly", "true").param("maxRoomRent", "115").param("sort", "RENT_ASC"));
+        assertThat(renthouseIds(rentAscending)).containsExactly(cheapest.getId(), cheaper.getId());
+        assertThat(renthouseIds(tenant(get("/api/user/renthouses/search")
+                .param("maxRoomRent", "115").param("sort", "RENT_DESC"))))
+                .containsExactly(cheaper.getId(), cheapest.getId());
+
+        // Booking the only room under 115 moves the renthouse's cheapest available rent back to 140
+        mockMvc.perform(tenant(post("/api/user/rooms/{id}/book", cheapestRoom.getId()))).andExpect(status().isOk());
+        assertThat(renthouseIds(rentAscending)).containsExactly(cheaper.getId());
+    }
+
+    @AfterAll
+    void printReport() {
+        System.out.println("Endpoint query budget report:");
+        REPORT.forEach((endpoint, result) -> System.out.println("  " + endpoint + " -> " + result));
+    }
+
+    // ---- helpers ---------------------------------------------------------------------------
+
+    private MockHttpServletRequestBuilder tenant(MockHttpServletRequestBuilder request) {
+        return request.header("Authorization", "Bearer " + tenantToken);
+    }
+
+    private MockHttpServletRequestBuilder owner(MockHttpServletRequestBuilder request) {
+        return request.header("Authorization", "Bearer " + ownerToken);
+    }
+
+    private void read(int maxStatements, MockHttpServletRequestBuilder request) throws Exception {
+        read(maxStatements, READ_MILLIS, request);
+    }
+
+    private void read(int maxStatements, long maxMillis, MockHttpServletRequestBuilder request) throws Exception {
+        // Warm-up call so class loading and first-use JIT do not count against the latency budget
+        mockMvc.perform(request).andExpect(status().isOk());
+        measure(describe(request), maxStatements, maxMillis, request, true);
+    }
+
+    private String write(int maxStatements, MockHttpServletRequestBuilder request) throws Exception {
+        return measure(describe(request), maxStatements, WRITE_MILLIS, request, true);
+    }
+
+    private String measure(String endpoint, int maxStatements, long maxMillis,
+                           MockHttpServletRequestBuilder request, boolean apiResponse) throws Exception {
+        double before = statementCount();
+        double holdBefore = connectionHoldMillis();
+        long start = System.nanoTime();
+        var result = mockMvc.perform(request).andExpect(status().isOk());
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        int statements = (int) Math.round(statementCount() - before);
+        long holdMillis = Math.round(connectionHoldMillis() - holdBefore);
+        if (apiResponse) {
+            result.andExpect(jsonPath("$.success").value(true));
+        }
+        REPORT.merge(endpoint, statements + " statements, " + elapsedMillis + "ms, connection held " + holdMillis + "ms",
+                (a, b) -> a + "; " + b);
+
+        assertThat(statements)
+                .as("SQL statements issued by %s", endpoint)
+                .isLessThanOrEqualTo(maxStatements);
+        assertThat(elapsedMillis)
+                .as("latency of %s in ms", endpoint)
+                .isLessThanOrEqualTo(maxMillis);
+        return result.andReturn().getResponse().getContentAsString();
+    }
+
+    private static String join(List<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private String describe(MockHttpServletRequestBuilder request) {
+        var built = request.buildRequest(new org.springframework.mock.web.MockServletContext());
+        return built.getMethod() + " " + built.getRequestURI();
+    }
+
+    private double statementCount() {
+        return Metrics.globalRegistry.find("db.statements").counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private double connectionHoldMillis() {
+        return meterRegistry.find("http.server.requests.connection.hold").timers().stream()
+                .mapToDouble(timer -> timer.totalTime(TimeUnit.MILLISECONDS))
+                .sum();
+    }
+
+    private List<Long> renthouseIds(MockHttpServletRequestBuilder request) throws Exception {
+        JsonNode data = objectMapper.readTree(mockMvc.perform(request).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("data");
+        List<Long> ids = new ArrayList<>();
+        data.forEach(renthouse -> ids.add(renthouse.get("id").asLong()));
+        return ids;
+    }
+
+    private Room availableRoomOf(Renthouse renthouse) {
+        return dataset.rooms.stream()
+                .filter(room -> room.getFloor().getRenthouse() == renthouse)
+                .filter(room -> room.getStatus() == Room.RoomStatus.AVAILABLE)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private void setRent(Room room, int monthlyRent) throws Exception {
+        Map<String, Object> request = Map.of("roomNumber", room.getRoomNumber(), "description", room.getDescription(),
+                "monthlyRent", monthlyRent, "deposit", room.getDeposit());
+        mockMvc.perform(owner(put("/api/owner/rooms/{id}", room.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))))
+                .andExpect(status().isOk());
+    }
+
+    private Room unfavoritedSpareRoom() {
+        return dataset.spareRoomsOfOwner().stream()
+                .skip(1)
+                .findFirst()
+                .orElseThrow();
+    }
+}
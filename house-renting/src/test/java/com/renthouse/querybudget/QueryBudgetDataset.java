@@ -0,0 +1,200 @@
+package com.renthouse.querybudget;
+
+import com.renthouse.entity.*;
+import com.renthouse.repository.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Seeds a dataset big enough that per-row lazy loading shows up in statement counts: several
+ * owners with a handful of renthouses each, most rooms rented, a year of payments per rental and
+ * a few favorites per tenant. The first owner and the first tenant are the accounts under test.
+ */
+public class QueryBudgetDataset {
+
+    public static final String PASSWORD = "password";
+    // BCrypt hash of PASSWORD, same as the sample data in RenthouseApplication
+    private static final String PASSWORD_HASH = "$2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2.uheWG/igi";
+
+    public static final int OWNERS = 6;
+    public static final int RENTHOUSES_PER_OWNER = 3;
+    public static final int FLOORS_PER_RENTHOUSE = 3;
+    public static final int ROOMS_PER_FLOOR = 4;
+    public static final int TENANTS = 30;
+    public static final int PAYMENT_MONTHS = 12;
+    public static final int FAVORITES_PER_TENANT = 4;
+
+    public final List<User> owners = new ArrayList<>();
+    public final List<User> tenants = new ArrayList<>();
+    public final List<Renthouse> renthouses = new ArrayList<>();
+    public final List<Floor> floors = new ArrayList<>();
+    public final List<Room> rooms = new ArrayList<>();
+    public final List<Payment> payments = new ArrayList<>();
+    public final List<Favorite> favorites = new ArrayList<>();
+
+    public User owner;
+    public User tenant;
+    public Renthouse ownerRenthouse;
+    public Floor ownerFloor;
+    public Room tenantRoom;
+    public Payment tenantPayment;
+
+    public static QueryBudgetDataset seed(UserRepository userRepository,
+                                          RenthouseRepository renthouseRepository,
+                                          FloorRepository floorRepository,
+                                          RoomRepository roomRepository,
+                                          PaymentRepository paymentRepository,
+                                          FavoriteRepository favoriteRepository) {
+        QueryBudgetDataset dataset = new QueryBudgetDataset();
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < OWNERS; i++) {
+            users.add(user("budget_owner" + i, User.Role.OWNER));
+        }
+        for (int i = 0; i < TENANTS; i++) {
+            users.add(user("budget_tenant" + i, User.Role.USER));
+        }
+        userRepository.saveAll(users);
+        dataset.owners.addAll(users.subList(0, OWNERS));
+        dataset.tenants.addAll(users.subList(OWNERS, users.size()));
+
+        for (int o = 0; o < OWNERS; o++) {
+            for (int r = 0; r < RENTHOUSES_PER_OWNER; r++) {
+                Renthouse renthouse = new Renthouse();
+                renthouse.setName("Budget House " + o + "-" + r);
+                renthouse.setAddress((100 + r) + " Budget Street, District " + o);
+                renthouse.setDescription("Seeded renthouse " + r + " of owner " + o);
+                renthouse.setLatitude(11.55 + o * 0.01 + r * 0.001);
+                renthouse.setLongitude(104.92 + o * 0.01 + r * 0.001);
+                renthouse.setBaseRent(new BigDecimal(150 + 10 * r));
+                renthouse.setWaterFee(new BigDecimal("5.00"));
+                renthouse.setElectricityFee(new BigDecimal("0.25"));
+                renthouse.setOwner(dataset.owners.get(o));
+                dataset.renthouses.add(renthouse);
+            }
+        }
+        renthouseRepository.saveAll(dataset.renthouses);
+
+        for (Renthouse renthouse : dataset.renthouses) {
+            for (int f = 1; f <= FLOORS_PER_RENTHOUSE; f++) {
+                Floor floor = new Floor();
+                floor.setFloorNumber(f);
+                floor.setDescription("Floor " + f);
+                floor.setRenthouse(renthouse);
+                dataset.floors.add(floor);
+            }
+        }
+        floorRepository.saveAll(dataset.floors);
+
+        // Every room but the last on each floor is rented, spread round-robin over the tenants
+        int rented = 0;
+        for (Floor floor : dataset.floors) {
+            for (int n = 1; n <= ROOMS_PER_FLOOR; n++) {
+                Room room = new Room();
+                room.setRoomNumber(String.valueOf(floor.getFloorNumber() * 100 + n));
+                room.setDescription("Room " + n + " on floor " + floor.getFloorNumber());
+                room.setMonthlyRent(new BigDecimal(120 + 5 * n));
+                room.setDeposit(new BigDecimal(240 + 10 * n));
+                room.setFloor(floor);
+                if (n < ROOMS_PER_FLOOR) {
+                    room.setRenter(dataset.tenants.get(rented++ % TENANTS));
+                    room.setStatus(n % 2 == 0 ? Room.RoomStatus.BOOKED : Room.RoomStatus.OCCUPIED);
+                    room.setBookedAt(LocalDateTime.now().minusMonths(PAYMENT_MONTHS));
+                } else {
+                    room.setStatus(Room.RoomStatus.AVAILABLE);
+                }
+                dataset.rooms.add(room);
+            }
+        }
+        roomRepository.saveAll(dataset.rooms);
+
+        LocalDate firstMonth = LocalDate.now().withDayOfMonth(1).minusMonths(PAYMENT_MONTHS - 1);
+        for (Room room : dataset.rooms) {
+            if (room.getRenter() == null) {
+                continue;
+            }
+            for (int m = 0; m < PAYMENT_MONTHS; m++) {
+                Payment payment = new Payment();
+                payment.setType("MONTHLY");
+                payment.setPaymentMonth(firstMonth.plusMonths(m));
+                payment.setRoomFee(room.getMonthlyRent());
+                payment.setElectricityFee(new BigDecimal("12.50"));
+                payment.setWaterFee(new BigDecimal("5.00"));
+                payment.setOtherCharges(BigDecimal.ZERO);
+                payment.setQrCodeData("qr-" + room.getRoomNumber() + "-" + m);
+                payment.setStatus(m < PAYMENT_MONTHS - 2 ? Payment.PaymentStatus.PAID : Payment.PaymentStatus.PENDING);
+                if (payment.getStatus() == Payment.PaymentStatus.PAID) {
+                    payment.setPaidAt(firstMonth.plusMonths(m).plusDays(3).atStartOfDay());
+                }
+                payment.setRoom(room);
+                payment.setUser(room.getRenter());
+                dataset.payments.add(payment);
+            }
+        }
+        paymentRepository.saveAll(dataset.payments);
+
+        List<Room> availableRooms = dataset.rooms.stream()
+                .filter(room -> room.getStatus() == Room.RoomStatus.AVAILABLE)
+                .toList();
+        for (int t = 0; t < TENANTS; t++) {
+            for (int k = 0; k < FAVORITES_PER_TENANT; k++) {
+                Favorite favorite = new Favorite();
+                favorite.setUser(dataset.tenants.get(t));
+                favorite.setRoom(availableRooms.get((t + k * 7) % availableRooms.size()));
+                dataset.favorites.add(favorite);
+            }
+        }
+        favoriteRepository.saveAll(dataset.favorites);
+
+        dataset.owner = dataset.owners.get(0);
+        dataset.tenant = dataset.tenants.get(0);
+        dataset.ownerRenthouse = dataset.renthouses.get(0);
+        dataset.ownerFloor = dataset.floors.get(0);
+        dataset.tenantRoom = dataset.rooms.stream()
+                .filter(room -> room.getRenter() == dataset.tenant)
+                .findFirst()
+                .orElseThrow();
+        dataset.tenantPayment = dataset.payments.stream()
+                .filter(payment -> payment.getRoom() == dataset.tenantRoom)
+                .filter(payment -> payment.getStatus() == Payment.PaymentStatus.PENDING)
+                .findFirst()
+                .orElseThrow();
+        return dataset;
+    }
+
+    /** Available rooms of the test owner that the test tenant has not favorited, for mutating tests. */
+    public List<Room> spareRoomsOfOwner() {
+        return rooms.stream()
+                .filter(room -> room.getStatus() == Room.RoomStatus.AVAILABLE)
+                .filter(room -> room.getFloor().getRenthouse().getOwner() == owner)
+                .filter(room -> favorites.stream()
+                        .noneMatch(favorite -> favorite.getUser() == tenant && favorite.getRoom() == room))
+                .toList();
+    }
+
+    /** A renthouse of the test owner none of whose rooms the test tenant has favorited. */
+    public Renthouse unfavoritedRenthouseOfOwner() {
+        return renthouses.stream()
+                .filter(renthouse -> renthouse.getOwner() == owner)
+                .filter(renthouse -> favorites.stream()
+                        .noneMatch(favorite -> favorite.getUser() == tenant
+                                && favorite.getRoom().getFloor().getRenthouse() == renthouse))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static User user(String username, User.Role role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword(PASSWORD_HASH);
+        user.setFullName("Budget " + username);
+        user.setPhoneNumber("0120000000");
+        user.setRole(role);
+        return user;
+    }
+}
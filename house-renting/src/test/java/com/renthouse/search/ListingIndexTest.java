@@ -0,0 +1,123 @@
+package com.renthouse.search;
+
+import com.renthouse.dto.ListingSearchResult;
+import com.renthouse.entity.Room;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ListingIndexTest {
+
+    private ListingIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ListingIndex(List.of(new BigDecimal("100"), new BigDecimal("200")));
+        index.replaceAll(
+                List.of(new ListingRow(1L, "Sunrise Residence", "12 Norodom Blvd", "Quiet rooms", new BigDecimal("150")),
+                        new ListingRow(2L, "Riverside Garden", "45 Sisowath Quay", "Sunrise views", new BigDecimal("250")),
+                        new ListingRow(3L, "Garden Villa", "7 Street 310", null, new BigDecimal("90"))),
+                List.of(room(11L, 1L, "120", Room.RoomStatus.AVAILABLE),
+                        room(12L, 1L, "140", Room.RoomStatus.OCCUPIED),
+                        room(21L, 2L, "300", Room.RoomStatus.AVAILABLE),
+                        room(22L, 2L, "320", Room.RoomStatus.AVAILABLE),
+                        room(31L, 3L, "80", Room.RoomStatus.BOOKED)));
+    }
+
+    @Test
+    void wordsArePrefixMatchedAndRankedByField() {
+        ListingSearchResult result = search("sunr", null, null, false);
+
+        // A name match outranks the same word in another renthouse's description
+        assertThat(ids(result)).containsExactly(1L, 2L);
+        assertThat(ids(search("garden sisowath", null, null, false))).containsExactly(2L);
+        assertThat(search("nowhere", null, null, false).total()).isZero();
+    }
+
+    @Test
+    void facetsCountMatchesAndPriceBucketsIgnoreThePriceFilter() {
+        ListingSearchResult result = search(null, new BigDecimal("100"), new BigDecimal("200"), false);
+
+        assertThat(ids(result)).containsExactly(1L);
+        assertThat(result.facets().priceBuckets()).containsExactly(
+                Map.entry("0-100", 1), Map.entry("100-200", 1), Map.entry("200+", 1));
+        assertThat(result.facets().roomStatus()).containsOnly(Map.entry("AVAILABLE", 1), Map.entry("OCCUPIED", 1));
+        assertThat(result.facets().availableRooms()).isEqualTo(1);
+        assertThat(result.hits().get(0).minAvailableRent()).isEqualByComparingTo("120");
+    }
+
+    @Test
+    void availableOnlyAndRoomRentLookAtAvailableRooms() {
+        ListingSearchResult result = index.search(new ListingQuery(null, null, null,
+                new BigDecimal("130"), new BigDecimal("310"), true, 10));
+
+        // Renthouse 1 only has an occupied room in range; 3 has nothing available
+        assertThat(ids(result)).containsExactly(2L);
+        assertThat(result.facets().renthousesWithAvailableRooms()).isEqualTo(1);
+        assertThat(result.facets().availableRooms()).isEqualTo(2);
+    }
+
+    @Test
+    void incrementalUpdatesReplaceWordsAndRooms() {
+        index.putRenthouse(new ListingRow(1L, "Moonlight Residence", "12 Norodom Blvd", "Quiet rooms", new BigDecimal("150")));
+        index.putRoom(room(11L, 1L, "120", Room.RoomStatus.BOOKED));
+        index.putRenthouse(new ListingRow(4L, "Sunrise Tower", "1 Monivong Blvd", null, new BigDecimal("400")));
+        index.putRoom(room(41L, 4L, "410", Room.RoomStatus.AVAILABLE));
+
+        assertThat(ids(search("sunrise", null, null, false))).containsExactly(4L, 2L);
+        assertThat(ids(search("moon", null, null, false))).containsExactly(1L);
+        assertThat(search("moon", null, null, true).total()).isZero();
+        assertThat(index.renthouseOfRoom(41L)).isEqualTo(4L);
+
+        index.removeRenthouse(4L);
+        assertThat(ids(search("sunrise", null, null, false))).containsExactly(2L);
+        assertThat(index.renthouseOfRoom(41L)).isNull();
+    }
+
+    @Test
+    void updatesDuringARebuildAreReplayedOntoIt() {
+        index.beginRebuild();
+        // Committed after the rebuild read its rows, which still have renthouse 2 and lack 4
+        index.putRenthouse(new ListingRow(4L, "Sunrise Tower", "1 Monivong Blvd", null, new BigDecimal("400")));
+        index.putRoom(room(41L, 4L, "410", Room.RoomStatus.AVAILABLE));
+        index.removeRenthouse(2L);
+        index.replaceAll(
+                List.of(new ListingRow(1L, "Sunrise Residence", "12 Norodom Blvd", "Quiet rooms", new BigDecimal("150")),
+                        new ListingRow(2L, "Riverside Garden", "45 Sisowath Quay", "Sunrise views", new BigDecimal("250"))),
+                List.of(room(11L, 1L, "120", Room.RoomStatus.AVAILABLE),
+                        room(21L, 2L, "300", Room.RoomStatus.AVAILABLE)));
+
+        assertThat(ids(search("sunrise", null, null, false))).containsExactly(1L, 4L);
+        assertThat(index.renthouseOfRoom(41L)).isEqualTo(4L);
+        assertThat(index.renthouseOfRoom(21L)).isNull();
+
+        // Only updates since beginRebuild are replayed
+        index.replaceAll(List.of(new ListingRow(1L, "Sunrise Residence", "12 Norodom Blvd", null, null)), List.of());
+        assertThat(ids(search("sunrise", null, null, false))).containsExactly(1L);
+    }
+
+    @Test
+    void limitCapsHitsButNotTheTotal() {
+        ListingSearchResult result = index.search(new ListingQuery(null, null, null, null, null, false, 2));
+
+        assertThat(result.hits()).hasSize(2);
+        assertThat(result.total()).isEqualTo(3);
+    }
+
+    private ListingSearchResult search(String text, BigDecimal minPrice, BigDecimal maxPrice, boolean availableOnly) {
+        return index.search(new ListingQuery(text, minPrice, maxPrice, null, null, availableOnly, 10));
+    }
+
+    private static List<Long> ids(ListingSearchResult result) {
+        return result.hits().stream().map(ListingSearchResult.Hit::renthouseId).toList();
+    }
+
+    private static ListingRoomRow room(Long roomId, Long renthouseId, String rent, Room.RoomStatus status) {
+        return new ListingRoomRow(roomId, renthouseId, new BigDecimal(rent), status);
+    }
+}
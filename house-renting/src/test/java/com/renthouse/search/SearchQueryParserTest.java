@@ -0,0 +1,61 @@
+package com.renthouse.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchQueryParserTest {
+
+    @Test
+    void wordsArePrefixMatchedAndAndedWithinTheGivenWeights() {
+        SearchQueryParser.ParsedQuery query = SearchQueryParser.parse("Sunrise  Resid", "AC");
+
+        assertThat(query.tsQuery()).isEqualTo("sunrise:*AC & resid:*AC");
+        assertThat(query.fuzzyText()).isEqualTo("sunrise resid");
+        assertThat(query.exclusions()).isNull();
+    }
+
+    @Test
+    void orAndPipeMakeAlternatives() {
+        assertThat(SearchQueryParser.parse("riverside OR garden|villa", "A").tsQuery())
+                .isEqualTo("riverside:*A | garden:*A | villa:*A");
+    }
+
+    @Test
+    void danglingOperatorsAreDropped() {
+        assertThat(SearchQueryParser.parse("or riverside or", "A").tsQuery()).isEqualTo("riverside:*A");
+    }
+
+    @Test
+    void quotedWordsMustBeAdjacent() {
+        assertThat(SearchQueryParser.parse("\"Norodom Blvd\" phnom", "B").tsQuery())
+                .isEqualTo("(norodom:B <-> blvd:B) & phnom:*B");
+    }
+
+    @Test
+    void excludedWordsAreNegatedAndLeftOutOfTheFuzzyText() {
+        SearchQueryParser.ParsedQuery query = SearchQueryParser.parse("studio -shared", "AC");
+
+        assertThat(query.tsQuery()).isEqualTo("studio:*AC & !shared:*AC");
+        assertThat(query.fuzzyText()).isEqualTo("studio");
+        assertThat(query.exclusions()).isEqualTo("!shared:*AC");
+    }
+
+    @Test
+    void punctuationSplitsWordsIntoAPhrase() {
+        assertThat(SearchQueryParser.parse("Tuol-Kork", "B").tsQuery()).isEqualTo("(tuol:*B <-> kork:*B)");
+    }
+
+    @Test
+    void tsquerySyntaxInTheInputIsTreatedAsText() {
+        assertThat(SearchQueryParser.parse("a:* & !(b) <-> 'c'", "A").tsQuery())
+                .isEqualTo("a:*A & b:*A & c:*A");
+    }
+
+    @Test
+    void inputWithoutWordsIsNoQuery() {
+        assertThat(SearchQueryParser.parse(null, "A")).isNull();
+        assertThat(SearchQueryParser.parse("  ", "A")).isNull();
+        assertThat(SearchQueryParser.parse("!!! | OR", "A")).isNull();
+    }
+}
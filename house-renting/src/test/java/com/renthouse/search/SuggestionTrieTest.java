@@ -0,0 +1,68 @@
+package com.renthouse.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestionTrieTest {
+
+    @Test
+    void returnsTheBestScoredValuesUnderThePrefix() {
+        SuggestionTrie<String> trie = new SuggestionTrie<>();
+        trie.put("sunrise residence", "Sunrise Residence", 3);
+        trie.put("sunset villa", "Sunset Villa", 7);
+        trie.put("sun tower", "Sun Tower", 5);
+        trie.put("riverside", "Riverside", 9);
+
+        assertThat(trie.top("sun", 2)).containsExactly("Sunset Villa", "Sun Tower");
+        assertThat(trie.top("suns", 5)).containsExactly("Sunset Villa");
+        assertThat(trie.top("sunrise r", 5)).containsExactly("Sunrise Residence");
+        assertThat(trie.top("sunx", 5)).isEmpty();
+    }
+
+    @Test
+    void aValueUnderSeveralKeysIsReturnedOnce() {
+        SuggestionTrie<String> trie = new SuggestionTrie<>();
+        trie.put("garden house", "Garden House", 2);
+        trie.put("house", "Garden House", 2);
+        trie.put("harbour view", "Harbour View", 1);
+
+        assertThat(trie.top("h", 5)).containsExactly("Garden House", "Harbour View");
+    }
+
+    @Test
+    void putAgainChangesTheScore() {
+        SuggestionTrie<String> trie = new SuggestionTrie<>();
+        trie.put("norodom", "Norodom", 1);
+        trie.put("north park", "North Park", 2);
+
+        trie.put("norodom", "Norodom", 10);
+
+        assertThat(trie.top("nor", 5)).containsExactly("Norodom", "North Park");
+        assertThat(trie.size()).isEqualTo(2);
+    }
+
+    @Test
+    void removeLeavesTheOtherKeysReachable() {
+        SuggestionTrie<String> trie = new SuggestionTrie<>();
+        trie.put("tuol kork", "Tuol Kork", 4);
+        trie.put("tuol sleng", "Tuol Sleng", 3);
+        trie.put("tuol", "Tuol", 1);
+
+        assertThat(trie.remove("tuol sleng", "Tuol Sleng")).isTrue();
+        assertThat(trie.remove("tuol", "Tuol")).isTrue();
+        assertThat(trie.remove("tuol", "Tuol")).isFalse();
+
+        assertThat(trie.top("tuol", 5)).containsExactly("Tuol Kork");
+        assertThat(trie.top("tuol k", 5)).containsExactly("Tuol Kork");
+        assertThat(trie.size()).isEqualTo(1);
+    }
+
+    @Test
+    void nonPositiveLimitReturnsNothing() {
+        SuggestionTrie<String> trie = new SuggestionTrie<>();
+        trie.put("a", "A", 1);
+
+        assertThat(trie.top("a", 0)).isEmpty();
+    }
+}
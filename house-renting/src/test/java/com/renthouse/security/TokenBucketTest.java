@@ -0,0 +1,48 @@
+package com.renthouse.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsABurstUpToCapacityThenReportsTheWait() {
+        TokenBucket bucket = new TokenBucket(3, SECOND, 0);
+
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isEqualTo(SECOND);
+        assertThat(bucket.tryAcquire(SECOND / 4)).isEqualTo(SECOND * 3 / 4);
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        TokenBucket bucket = new TokenBucket(2, SECOND, 0);
+        bucket.tryAcquire(0);
+        bucket.tryAcquire(0);
+
+        assertThat(bucket.tryAcquire(SECOND)).isZero();
+        assertThat(bucket.tryAcquire(SECOND)).isPositive();
+        assertThat(bucket.tryAcquire(3 * SECOND)).isZero();
+        assertThat(bucket.tryAcquire(3 * SECOND)).isZero();
+        assertThat(bucket.tryAcquire(3 * SECOND)).isPositive();
+    }
+
+    @Test
+    void idleTimeDoesNotBankMoreThanCapacity() {
+        TokenBucket bucket = new TokenBucket(2, SECOND, 0);
+
+        long later = 100 * SECOND;
+        assertThat(bucket.isFull(later)).isTrue();
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.isFull(later)).isFalse();
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.tryAcquire(later)).isPositive();
+    }
+}
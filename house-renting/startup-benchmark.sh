@@ -0,0 +1,26 @@
+#!/bin/bash
+# Compares time-to-first-request of the plain class path, AOT, and AOT + AppCDS start modes.
+# Needs the database from application.properties (or SPRING_DATASOURCE_* variables) to be reachable.
+# Extra arguments go to StartupBenchmark, e.g. ./startup-benchmark.sh --runs=10 --out=startup.json
+
+set -e
+cd "$(dirname "$0")"
+
+./mvnw -q -B install -DskipTests -Pfast-startup
+./mvnw -q -B -f benchmarks/pom.xml package
+./prepare-fast-startup.sh target/fast-startup
+
+MAIN=com.renthouse.RenthouseApplication
+AOT="-Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup"
+
+# Same training run as Dockerfile.fast-startup
+(cd target/fast-startup && java -XX:ArchiveClassesAtExit=app.jsa $AOT -Dspring.context.exit=onRefresh \
+    -Dspring.jpa.hibernate.ddl-auto=none \
+    -Dspring.jpa.properties.hibernate.temp.use_jdbc_metadata_defaults=false \
+    @classpath.args $MAIN > training.log 2>&1)
+
+java -cp benchmarks/target/benchmarks.jar com.renthouse.load.StartupBenchmark --dir=target/fast-startup \
+    "--mode.classpath=java @classpath.args $MAIN" \
+    "--mode.aot=java $AOT @classpath.args $MAIN" \
+    "--mode.aot-cds=java -XX:SharedArchiveFile=app.jsa $AOT @classpath.args $MAIN" \
+    "$@"